@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("com.gradleup.shadow") version "8.3.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "dev.gothickit.mdd"
@@ -17,6 +18,8 @@ dependencies {
     implementation("com.formdev:flatlaf:3.5.1")
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    // The benchmarks generate their scripts using the ScriptBuilder of the tests.
+    jmhImplementation(sourceSets.test.get().output)
     compileOnly("org.jetbrains:annotations:24.1.0")
 }
 
@@ -28,4 +31,15 @@ tasks.withType<Jar> {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+jmh {
+    jmhVersion = "1.37"
+    jvmArgsAppend.add("-Djava.awt.headless=true")
+}
+
+tasks.named<Jar>("jmhJar") {
+    manifest {
+        attributes.put("Main-Class", "org.openjdk.jmh.Main")
+    }
+}
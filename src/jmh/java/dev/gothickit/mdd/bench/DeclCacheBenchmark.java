@@ -0,0 +1,75 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compares the dense {@link AtomicReferenceArray} declaration cache used by the {@link Decompiler} with the boxed
+ * {@link HashMap} it replaced by looking up every symbol of the script once. The map is a stand-in for the old cache,
+ * which no longer exists in the decompiler. {@link #decompileDecl} measures the same lookups through a real, warm
+ * decompiler and {@link #construct} measures creating a decompiler for the script, which allocates the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DeclCacheBenchmark {
+    private Decompiler decompiler;
+    private AtomicReferenceArray<Decl> dense;
+    private HashMap<Integer, Decl> boxed;
+
+    @Setup
+    public void setup(ScriptFixture fixture) {
+        decompiler = new Decompiler(fixture.script);
+        var count = fixture.script.getSymbolTable().getSymbolCount();
+
+        dense = new AtomicReferenceArray<>(count);
+        boxed = new HashMap<>();
+
+        for (var i = 0; i < count; ++i) {
+            dense.set(i, decompiler.decompileDecl(i));
+            boxed.put(i, dense.get(i));
+        }
+    }
+
+    @Benchmark
+    public Decompiler construct(ScriptFixture fixture) {
+        return new Decompiler(fixture.script);
+    }
+
+    @Benchmark
+    public void decompileDecl(Blackhole bh) {
+        for (var i = 0; i < dense.length(); ++i) {
+            bh.consume(decompiler.decompileDecl(i));
+        }
+    }
+
+    @Benchmark
+    public void hashMap(Blackhole bh) {
+        for (var i = 0; i < dense.length(); ++i) {
+            if (boxed.containsKey(i)) {
+                bh.consume(boxed.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void array(Blackhole bh) {
+        for (var i = 0; i < dense.length(); ++i) {
+            var decl = dense.get(i);
+            if (decl != null) {
+                bh.consume(decl);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.Script;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecompilerBenchmark {
+    /**
+     * A decompiler which has not decompiled any code yet. Rebuilt before every invocation, so that decompiling code
+     * never hits the decompiler's caches.
+     */
+    @State(Scope.Thread)
+    public static class Cold {
+        public Decompiler decompiler;
+
+        @Setup(Level.Invocation)
+        public void setup(ScriptFixture fixture) {
+            decompiler = new Decompiler(fixture.script);
+        }
+    }
+
+    /**
+     * A decompiler which has already decompiled the code of every executable once.
+     */
+    @State(Scope.Thread)
+    public static class Warm {
+        public Decompiler decompiler;
+
+        @Setup(Level.Trial)
+        public void setup(ScriptFixture fixture) {
+            decompiler = new Decompiler(fixture.script);
+            for (var decl : fixture.executables) {
+                decompiler.decompileCode(decompiler.decompileDecl(decl.getSymbol().getIndex()));
+            }
+        }
+    }
+
+    @Benchmark
+    public Decompiler construct(ScriptFixture fixture) {
+        return new Decompiler(fixture.script);
+    }
+
+    @Benchmark
+    public void declarations(ScriptFixture fixture, Blackhole bh) {
+        for (var decl : new Decompiler(fixture.script).getTopLevelSymbols()) {
+            bh.consume(decl);
+        }
+    }
+
+    @Benchmark
+    public Script load(ScriptFixture fixture) throws IOException {
+        return fixture.getBackend().load(fixture.path, "Windows-1252");
+    }
+
+    @Benchmark
+    public void decompileCode(ScriptFixture fixture, Cold state, Blackhole bh) {
+        var decompiler = state.decompiler;
+        for (var decl : fixture.executables) {
+            bh.consume(decompiler.decompileCode(decompiler.decompileDecl(decl.getSymbol().getIndex())));
+        }
+    }
+
+    @Benchmark
+    public void decompileCodeCached(ScriptFixture fixture, Warm state, Blackhole bh) {
+        var decompiler = state.decompiler;
+        for (var decl : fixture.executables) {
+            bh.consume(decompiler.decompileCode(decompiler.decompileDecl(decl.getSymbol().getIndex())));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.disassembler.Disassembly;
+import dev.gothickit.mdd.disassembler.Fingerprints;
+import dev.gothickit.mdd.disassembler.ListingWriter;
+import dev.gothickit.mdd.gui.GuiDisassemblerView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class DisassemblerBenchmark {
+    private GuiDisassemblerView view;
+
+    @Setup
+    public void setup() {
+        view = new GuiDisassemblerView();
+    }
+
+    @Benchmark
+    public GuiDisassemblerView disassemble(ScriptFixture fixture) {
+        for (var decl : fixture.executables) {
+            view.setDisassembly(GuiDisassemblerView.disassemble(fixture.script, decl));
+        }
+        return view;
+    }
+
+    /**
+     * Formats every row, i.e. the worst case of a table which shows all instructions at once.
+     */
+    @Benchmark
+    public void format(ScriptFixture fixture, Blackhole bh) {
+        for (var decl : fixture.executables) {
+            var disassembly = Disassembly.of(fixture.script, decl.getSymbol());
+            for (var i = 0; i < disassembly.getInstructionCount(); ++i) {
+                bh.consume(disassembly.formatAddress(i));
+                bh.consume(disassembly.formatBytes(i));
+                bh.consume(disassembly.formatInstruction(i));
+                bh.consume(disassembly.formatComment(i));
+            }
+        }
+    }
+
+    /**
+     * Writes a text listing of the whole code segment, excluding any disk I/O.
+     */
+    @Benchmark
+    public int listing(ScriptFixture fixture) throws IOException {
+        return new ListingWriter(fixture.script, ListingWriter.Format.TEXT).write(Writer.nullWriter());
+    }
+
+    /**
+     * Fingerprints the code of all functions, prototypes and instances, as done for incremental exports.
+     */
+    @Benchmark
+    public long[] fingerprints(ScriptFixture fixture) {
+        return Fingerprints.of(fixture.script, new DecompilerOptions());
+    }
+}
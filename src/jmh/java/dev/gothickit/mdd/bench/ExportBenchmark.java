@@ -0,0 +1,86 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.export.ExportStatistics;
+import dev.gothickit.mdd.export.ScriptExporter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the whole script to a temporary directory, including decompilation, post-processing, rendering and
+ * writing the output files. The top-level benchmarks isolate finding the top-level declarations and the membership
+ * check post-processing runs for every integer which might reference an instance. {@link #listContains} is the
+ * baseline for that check, searching a list of the top-level declarations like the decompiler originally did.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ExportBenchmark {
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path output;
+    private Decompiler decompiler;
+    private List<Decl> topLevel;
+    private Decl[] decls;
+
+    @Setup
+    public void setup(ScriptFixture fixture) throws IOException {
+        output = Files.createTempDirectory("mdd-export");
+        decompiler = new Decompiler(fixture.script);
+        topLevel = new ArrayList<>(decompiler.getTopLevelSymbols());
+
+        decls = new Decl[fixture.script.getSymbolTable().getSymbolCount()];
+        for (var i = 0; i < decls.length; ++i) {
+            decls[i] = decompiler.decompileDecl(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(output)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public ExportStatistics export(ScriptFixture fixture) throws IOException, InterruptedException {
+        return new ScriptExporter(fixture.script, threads).export(output);
+    }
+
+    @Benchmark
+    public int[] topLevelIndices(ScriptFixture fixture) {
+        return new Decompiler(fixture.script).getTopLevelIndices();
+    }
+
+    @Benchmark
+    public void isTopLevel(ScriptFixture fixture, Blackhole bh) {
+        var count = fixture.script.getSymbolTable().getSymbolCount();
+        for (var i = 0; i < count; ++i) {
+            bh.consume(decompiler.isTopLevel(i));
+        }
+    }
+
+    @Benchmark
+    public void listContains(Blackhole bh) {
+        for (var decl : decls) {
+            bh.consume(topLevel.contains(decl));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.output.HtmlBuilder;
+import dev.gothickit.mdd.output.TextBuilder;
+import dev.gothickit.mdd.script.ScriptBackend;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a synthetic script whose functions consist of deeply nested conditionals, so that most of the output is
+ * indentation. Run with {@code -prof gc} to see the allocation rate of the source builders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndentBenchmark {
+    @Param({"4", "16", "48"})
+    public int depth;
+
+    private Decompiler decompiler;
+    private List<Decl> symbols;
+
+    @Setup
+    public void setup() throws IOException {
+        var path = ScriptFixture.generate(2000, 0, depth);
+        decompiler = new Decompiler(ScriptBackend.JAVA.load(path, "Windows-1252"));
+        symbols = decompiler.getTopLevelSymbols();
+
+        for (var decl : symbols) {
+            decompiler.decompileCode(decl);
+        }
+    }
+
+    @Benchmark
+    public String text() {
+        var builder = new TextBuilder();
+        for (var decl : symbols) {
+            builder.syntax(decl).text(";").newline();
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public String html() {
+        var builder = new HtmlBuilder();
+        for (var decl : symbols) {
+            builder.syntax(decl).text(";").newline();
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.decompiler.Decompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decompiles the code of every top-level declaration of the script using {@link Decompiler#decompileAll(int)} with
+ * varying numbers of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelDecompilerBenchmark {
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int parallelism;
+
+    private Decompiler decompiler;
+
+    @Setup(Level.Invocation)
+    public void setup(ScriptFixture fixture) {
+        decompiler = new Decompiler(fixture.script);
+    }
+
+    @Benchmark
+    public Decompiler decompileAll() throws InterruptedException {
+        decompiler.decompileAll(parallelism);
+        return decompiler;
+    }
+}
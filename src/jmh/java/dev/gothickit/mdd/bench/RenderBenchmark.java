@@ -0,0 +1,75 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.output.DocumentBuilder;
+import dev.gothickit.mdd.output.HtmlBuilder;
+import dev.gothickit.mdd.output.TextBuilder;
+import dev.gothickit.mdd.output.WriterTextBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.StyledDocument;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+    private Decompiler decompiler;
+    private List<Decl> symbols;
+
+    @Setup
+    public void setup(ScriptFixture fixture) {
+        decompiler = new Decompiler(fixture.script);
+        symbols = decompiler.getTopLevelSymbols();
+
+        for (var decl : symbols) {
+            decompiler.decompileCode(decl);
+        }
+    }
+
+    @Benchmark
+    public String html() {
+        var builder = new HtmlBuilder();
+        for (var decl : symbols) {
+            builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public StyledDocument document() {
+        var builder = new DocumentBuilder();
+        for (var decl : symbols) {
+            builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public String text() {
+        var builder = new TextBuilder();
+        for (var decl : symbols) {
+            builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+        }
+        return builder.toString();
+    }
+
+    @Benchmark
+    public void textStreaming() throws IOException {
+        try (var builder = new WriterTextBuilder(Writer.nullWriter())) {
+            for (var decl : symbols) {
+                builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.bench;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.FunctionDecl;
+import dev.gothickit.mdd.cst.InstanceDecl;
+import dev.gothickit.mdd.cst.PrototypeDecl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.ScriptBackend;
+import dev.gothickit.zenkit.capi.ZenKit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The script used by all benchmarks. The fixtures {@code small} and {@code large} are generated synthetically using
+ * {@link ScriptBuilder#generate(int, int, int)}. Any other value is treated as the path to a real compiled script, e.g.
+ * {@code -p fixture=/path/to/GOTHIC.DAT}. The script is loaded using every available {@link ScriptBackend}.
+ */
+@State(Scope.Benchmark)
+public class ScriptFixture {
+    @Param({"small", "large"})
+    public String fixture;
+
+    @Param({"zenkit", "java"})
+    public String backend;
+
+    public Path path;
+    public Script script;
+    public List<Decl> executables;
+
+    @Setup
+    public void setup() throws IOException {
+        ZenKit.load("Windows-1252");
+
+        path = switch (fixture) {
+            case "small" -> generate(500, 500, 3);
+            case "large" -> generate(10000, 20000, 6);
+            default -> Path.of(fixture);
+        };
+
+        script = getBackend().load(path, "Windows-1252");
+        executables = new Decompiler(script).getTopLevelSymbols().stream()
+                .filter(d -> d instanceof FunctionDecl || d instanceof PrototypeDecl || (d instanceof InstanceDecl && d.getSymbol().isConst()))
+                .filter(d -> !d.getSymbol().isExternal())
+                .toList();
+    }
+
+    public ScriptBackend getBackend() {
+        return ScriptBackend.valueOf(backend.toUpperCase());
+    }
+
+    /**
+     * Writes a generated script to a temporary file, so that it can be loaded using every backend.
+     */
+    static Path generate(int functions, int instances, int depth) throws IOException {
+        var path = Files.createTempFile("mdd-fixture-" + functions + "-" + instances + "-" + depth + "-", ".dat");
+        path.toFile().deleteOnExit();
+        Files.write(path, ScriptBuilder.fixture(functions, instances, depth).toByteArray());
+        return path;
+    }
+}
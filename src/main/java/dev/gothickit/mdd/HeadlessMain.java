@@ -0,0 +1,142 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd;
+
+import dev.gothickit.mdd.cache.ScriptCache;
+import dev.gothickit.mdd.cache.SourceCache;
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.disassembler.ListingWriter;
+import dev.gothickit.mdd.export.ScriptExporter;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.ScriptBackend;
+import dev.gothickit.zenkit.capi.ZenKit;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+public class HeadlessMain {
+    private static final String USAGE = """
+            Usage: mdd --batch [options] <script.dat>...
+              -o, --output <dir>       Directory to write the decompiled sources into (required)
+              -j, --threads <n>        Number of worker threads (default: available processors)
+              -e, --encoding <name>    String encoding of the scripts (default: Windows-1252)
+              -b, --backend <name>     Script reader to use, either `zenkit` or `java` (default: zenkit)
+              -c, --charset <name>     Character set of the written sources (default: UTF-8)
+              -d, --disassemble <fmt>  Also write a listing of the whole code segment, either `text` or `csv`
+                  --cache <dir>        Directory to cache loaded scripts and decompiled sources in
+                  --previous <dir>     Directory containing the previous build of the scripts. Requires --cache.
+                                       Only code which changed since then is decompiled again.
+            """;
+
+    public static void main(String[] args) {
+        Path output = null;
+        var threads = Runtime.getRuntime().availableProcessors();
+        var encoding = "Windows-1252";
+        var backend = ScriptBackend.ZENKIT;
+        var charset = StandardCharsets.UTF_8;
+        ListingWriter.Format listing = null;
+        Path cacheDirectory = null;
+        Path previous = null;
+        var inputs = new ArrayList<Path>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-o", "--output" -> output = Path.of(args[++i]);
+                    case "-j", "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "-e", "--encoding" -> encoding = args[++i];
+                    case "-b", "--backend" -> backend = ScriptBackend.valueOf(args[++i].toUpperCase());
+                    case "-c", "--charset" -> charset = Charset.forName(args[++i]);
+                    case "-d", "--disassemble" -> listing = ListingWriter.Format.valueOf(args[++i].toUpperCase());
+                    case "--cache" -> cacheDirectory = Path.of(args[++i]);
+                    case "--previous" -> previous = Path.of(args[++i]);
+                    case "-h", "--help" -> {
+                        System.out.print(USAGE);
+                        return;
+                    }
+                    default -> inputs.add(Path.of(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        if (output == null || inputs.isEmpty() || (previous != null && cacheDirectory == null)) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        if (backend == ScriptBackend.ZENKIT) {
+            ZenKit.load(encoding);
+        }
+
+        var cache = cacheDirectory != null ? new ScriptCache(cacheDirectory) : null;
+        var options = new DecompilerOptions();
+        var failed = false;
+        for (var input : inputs) {
+            var name = input.getFileName().toString();
+            if (name.contains(".")) {
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+
+            try {
+                var loadStart = System.nanoTime();
+                Script script;
+                SourceCache sources = null;
+
+                if (cache != null) {
+                    var entry = cache.load(input, backend, encoding);
+                    script = entry.script();
+                    sources = cache.getSources(entry, options);
+
+                    var previousInput = previous != null ? previous.resolve(input.getFileName()) : null;
+                    if (previousInput != null && Files.isRegularFile(previousInput)) {
+                        var previousEntry = cache.load(previousInput, backend, encoding);
+                        var inherited = sources.inherit(script, previousEntry.script(), cache.getSources(previousEntry, options), options);
+                        System.out.printf("%s: %d unchanged symbols taken over from %s%n", input, inherited, previousInput);
+                    }
+                } else {
+                    script = backend.load(input, encoding);
+                }
+
+                var loadTime = System.nanoTime() - loadStart;
+
+                var exporter = new ScriptExporter(script, threads, charset);
+                exporter.setSources(sources);
+                var stats = exporter.export(output.resolve(name));
+
+                if (sources != null) {
+                    sources.save();
+                }
+
+                System.out.printf("%s: %d symbols in %d files, load %.1f ms, export %.1f ms (%.0f symbols/s, %d threads)%n",
+                        input, stats.symbols(), stats.files().size(), loadTime / 1e6, stats.nanos() / 1e6,
+                        stats.getSymbolsPerSecond(), threads);
+
+                for (var file : stats.files()) {
+                    System.out.printf("  %6d.d  %6d symbols  %9.1f ms%n", file.fileIndex(), file.symbols(), file.nanos() / 1e6);
+                }
+
+                if (listing != null) {
+                    var listingStart = System.nanoTime();
+                    var listingPath = output.resolve(name + (listing == ListingWriter.Format.CSV ? ".csv" : ".lst"));
+                    var instructions = new ListingWriter(script, listing).write(listingPath, charset);
+
+                    System.out.printf("%s: %d instructions disassembled into %s in %.1f ms%n",
+                            input, instructions, listingPath, (System.nanoTime() - listingStart) / 1e6);
+                }
+            } catch (Exception e) {
+                System.err.println(input + ": " + e.getClass().getSimpleName() + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
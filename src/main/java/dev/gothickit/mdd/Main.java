@@ -4,8 +4,10 @@ package dev.gothickit.mdd;
 
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.icons.FlatTreeOpenIcon;
+import dev.gothickit.mdd.cache.ScriptCache;
 import dev.gothickit.mdd.decompiler.DecompilerOptions;
 import dev.gothickit.mdd.gui.GuiMainView;
+import dev.gothickit.mdd.script.ScriptBackend;
 import dev.gothickit.zenkit.capi.ZenKit;
 import org.jetbrains.annotations.NotNull;
 
@@ -14,16 +16,22 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.InputEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.prefs.Preferences;
 
 public class Main {
+    private static final String CACHE_PREFERENCE = "cache";
+    private static final Path CACHE_DIRECTORY = Path.of(System.getProperty("user.home"), ".cache", "mdd");
 
     private static String getResource(String path) {
         try {
@@ -34,6 +42,11 @@ public class Main {
     }
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            HeadlessMain.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         Main.loadNativeLibraries();
         FlatDarkLaf.setup();
 
@@ -106,6 +119,7 @@ public class Main {
 
             ZenKit.unload();
             ZenKit.load(encoding);
+            mainView.setEncoding(encoding);
             try {
                 mainView.loadAndShowScript(fc.getSelectedFile());
             } catch (IOException ex) {
@@ -117,6 +131,38 @@ public class Main {
 
         fileMenu.add(encodingMenu);
 
+        var backendMenu = createBackendMenu(backend -> {
+            mainView.unloadScript();
+            exportItem.setEnabled(false);
+            mainView.setBackend(backend);
+
+            if (fc.getSelectedFile() == null) {
+                return;
+            }
+
+            try {
+                mainView.loadAndShowScript(fc.getSelectedFile());
+            } catch (IOException ex) {
+                showErrorMessage(ex);
+                throw new RuntimeException(ex);
+            }
+            exportItem.setEnabled(true);
+        });
+
+        fileMenu.add(backendMenu);
+
+        // The cache is used for scripts opened after enabling it.
+        var preferences = Preferences.userNodeForPackage(Main.class);
+        var cacheItem = new JCheckBoxMenuItem("Cache Decompiled Scripts");
+        cacheItem.setSelected(preferences.getBoolean(CACHE_PREFERENCE, false));
+        cacheItem.addItemListener(e -> {
+            preferences.putBoolean(CACHE_PREFERENCE, cacheItem.isSelected());
+            mainView.setCache(cacheItem.isSelected() ? new ScriptCache(CACHE_DIRECTORY) : null);
+        });
+
+        mainView.setCache(cacheItem.isSelected() ? new ScriptCache(CACHE_DIRECTORY) : null);
+        fileMenu.add(cacheItem);
+
         var decompilerMenu = createDecompilerMenu(mainView::updateDecompilerOptions);
         menuBar.add(decompilerMenu);
 
@@ -170,6 +216,12 @@ public class Main {
         });
         frame.setJMenuBar(menuBar);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                mainView.unloadScript(); // Stores cached sources
+            }
+        });
         frame.add(mainView);
         frame.setSize(1200, 800);
         frame.setVisible(true);
@@ -265,6 +317,33 @@ public class Main {
         return encodingMenu;
     }
 
+    private static @NotNull JMenu createBackendMenu(Consumer<ScriptBackend> onBackendChange) {
+        var backendMenu = new JMenu("Reader");
+
+        var zenkitBackend = new JRadioButtonMenuItem("ZenKit (native)");
+        zenkitBackend.setSelected(true);
+        zenkitBackend.addItemListener(e -> {
+            if (zenkitBackend.isSelected()) {
+                onBackendChange.accept(ScriptBackend.ZENKIT);
+            }
+        });
+
+        var javaBackend = new JRadioButtonMenuItem("Java");
+        javaBackend.addItemListener(e -> {
+            if (javaBackend.isSelected()) {
+                onBackendChange.accept(ScriptBackend.JAVA);
+            }
+        });
+
+        ButtonGroup buttonGroup = new ButtonGroup();
+        buttonGroup.add(zenkitBackend);
+        buttonGroup.add(javaBackend);
+
+        backendMenu.add(zenkitBackend);
+        backendMenu.add(javaBackend);
+        return backendMenu;
+    }
+
     private static void loadNativeLibraries() {
         try {
             ZenKit.load("Windows-1252");
@@ -0,0 +1,125 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.cache;
+
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.ScriptBackend;
+import dev.gothickit.mdd.script.ScriptSnapshot;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A directory of script snapshots and rendered sources, which allows re-opening a script without parsing or
+ * decompiling it again. Entries are keyed by the SHA-256 hash of the script file, its encoding and the backend used
+ * to load it, so a script which changed on disk is never served from the cache. Rendered sources are additionally
+ * keyed by the decompiler options.
+ * <p>
+ * The cache is strictly optional: entries which cannot be read or written are ignored and rebuilt.
+ */
+public final class ScriptCache {
+    /**
+     * The version of the cached data. Must be changed whenever the decompiler output changes, so that sources
+     * rendered by an older version are not shown anymore.
+     */
+    static final int VERSION = 2;
+
+    private final Path directory;
+
+    public ScriptCache(final @NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the given script from its snapshot or, if there is none yet, using the given backend and then stores a
+     * snapshot of it.
+     */
+    public @NotNull Entry load(
+            final @NotNull Path path,
+            final @NotNull ScriptBackend backend,
+            final @NotNull String encoding
+    ) throws IOException {
+        var key = hash(path) + "-" + encoding + "-" + backend.name() + "-v" + VERSION;
+        var snapshot = directory.resolve(key + ".script");
+
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                return new Entry(key, ScriptSnapshot.read(snapshot));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        var script = backend.load(path, encoding);
+
+        try {
+            writeAtomically(snapshot, temporary -> ScriptSnapshot.write(script, temporary));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return new Entry(key, script);
+    }
+
+    /**
+     * Opens the rendered sources of a script previously loaded from this cache for the given options.
+     */
+    public @NotNull SourceCache getSources(final @NotNull Entry entry, final @NotNull DecompilerOptions options) {
+        var flags = (options.generateElseIf() ? 1 : 0) |
+                (options.generateStringLiterals() ? 2 : 0) |
+                (options.resolveFunctionReferences() ? 4 : 0) |
+                (options.resolveInstanceReferences() ? 8 : 0);
+
+        return SourceCache.open(directory.resolve(entry.key() + "-o" + flags + ".sources"));
+    }
+
+    /**
+     * Writes a file into a temporary file first and then moves it into place, so that readers never see a partially
+     * written file, even if the application is terminated while writing.
+     */
+    static void writeAtomically(final @NotNull Path path, final @NotNull FileWriter writer) throws IOException {
+        Files.createDirectories(path.getParent());
+        var temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+            writer.write(temporary);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static @NotNull String hash(final @NotNull Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+
+        // The file is streamed instead of memory-mapped, since a mapping is only released once it is garbage
+        // collected and keeps the file locked on Windows until then.
+        try (var in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public record Entry(String key, Script script) {
+    }
+
+    @FunctionalInterface
+    interface FileWriter {
+        void write(Path path) throws IOException;
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.cache;
+
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.disassembler.Fingerprints;
+import dev.gothickit.mdd.output.SourceRecorder;
+import dev.gothickit.mdd.script.Script;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The rendered sources of the declarations of a single script, stored as {@link SourceRecorder} recordings by symbol
+ * index. All entries are read into memory when the cache is opened. New entries are only written back to disk in
+ * {@link #save()}. Can be used from multiple threads at the same time.
+ */
+public final class SourceCache {
+    private static final int MAGIC = 0x4d444443; // "MDDC"
+
+    private final Path path;
+    private final ConcurrentHashMap<Integer, byte[]> sources = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long saved = 0;
+
+    private SourceCache(final @NotNull Path path) {
+        this.path = path;
+    }
+
+    static @NotNull SourceCache open(final @NotNull Path path) {
+        var cache = new SourceCache(path);
+        if (!Files.isRegularFile(path)) {
+            return cache;
+        }
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != ScriptCache.VERSION) {
+                throw new IOException("Not a source cache or outdated: " + path);
+            }
+
+            var count = in.readInt();
+            for (var i = 0; i < count; ++i) {
+                var index = in.readInt();
+                var length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Invalid length of source " + index + ": " + length);
+                }
+
+                cache.sources.put(index, in.readNBytes(length));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            cache.sources.clear();
+        }
+
+        return cache;
+    }
+
+    /**
+     * @return The recorded source of the declaration with the given symbol index or null, if it is not cached.
+     */
+    public byte @Nullable [] get(int index) {
+        return sources.get(index);
+    }
+
+    public void put(int index, byte @NotNull [] recording) {
+        if (sources.put(index, recording) == null) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * Takes over the sources of all functions, prototypes and instances which did not change compared to a previous
+     * build of the same script, so that only changed code has to be decompiled again. Symbols are matched by name and
+     * compared using their {@link Fingerprints}. References in the taken over sources are mapped to the symbol indices
+     * of the new build.
+     *
+     * @param options The decompiler options both caches were created for.
+     * @return The number of sources taken over.
+     */
+    public int inherit(
+            final @NotNull Script script,
+            final @NotNull Script previousScript,
+            final @NotNull SourceCache previous,
+            final @NotNull DecompilerOptions options
+    ) {
+        var table = script.getSymbolTable();
+        var previousTable = previousScript.getSymbolTable();
+        var fingerprints = Fingerprints.of(script, options);
+        var previousFingerprints = Fingerprints.of(previousScript, options);
+
+        // Maps symbol indices of the previous build to the new build. Sources referencing symbols which do not exist
+        // anymore are not taken over.
+        var missing = new boolean[1];
+        IntUnaryOperator references = index -> {
+            if (index < 0 || index >= previousTable.getSymbolCount()) {
+                return index;
+            }
+
+            var mapped = table.getIndexByName(previousTable.getName(index));
+            missing[0] |= mapped < 0;
+            return mapped;
+        };
+
+        var inherited = 0;
+        for (var i = 0; i < fingerprints.length; ++i) {
+            if (fingerprints[i] == 0 || sources.containsKey(i)) {
+                continue;
+            }
+
+            var j = previousTable.getIndexByName(table.getName(i));
+            if (j < 0 || previousFingerprints[j] != fingerprints[i]) {
+                continue;
+            }
+
+            var recording = previous.get(j);
+            if (recording == null) {
+                continue;
+            }
+
+            var recorder = new SourceRecorder();
+            missing[0] = false;
+            SourceRecorder.replay(recording, recorder, references);
+
+            if (!missing[0]) {
+                put(i, recorder.toByteArray());
+                inherited += 1;
+            }
+        }
+
+        return inherited;
+    }
+
+    /**
+     * Writes all entries to disk, if any were added since the cache was opened or last saved successfully.
+     */
+    public void save() throws IOException {
+        // Entries added while saving are not necessarily written, so only the ones added before count as saved.
+        var current = modifications.get();
+        if (current == saved) {
+            return;
+        }
+
+        var entries = Map.copyOf(sources);
+
+        ScriptCache.writeAtomically(path, temporary -> {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(ScriptCache.VERSION);
+                out.writeInt(entries.size());
+
+                for (var entry : entries.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+        });
+
+        saved = current;
+    }
+}
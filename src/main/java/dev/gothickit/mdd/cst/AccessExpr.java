@@ -54,4 +54,9 @@ public final class AccessExpr implements Expression {
             index.visit(consumer);
         }
     }
+
+    @Override
+    public AccessExpr copy() {
+        return new AccessExpr(target, index == null ? null : index.copy(), scope);
+    }
 }
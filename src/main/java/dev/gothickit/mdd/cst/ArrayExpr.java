@@ -5,6 +5,7 @@ package dev.gothickit.mdd.cst;
 import dev.gothickit.mdd.output.SourceBuilder;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -38,4 +39,14 @@ public final class ArrayExpr implements Expression {
             value.visit(consumer);
         }
     }
+
+    @Override
+    public ArrayExpr copy() {
+        var copies = new ArrayList<Expression>(values.size());
+        for (Expression value : values) {
+            copies.add(value.copy());
+        }
+
+        return new ArrayExpr(copies);
+    }
 }
@@ -45,4 +45,9 @@ public final class AssignStmt implements Statement {
         target.visit(consumer);
         value.visit(consumer);
     }
+
+    @Override
+    public AssignStmt copy() {
+        return new AssignStmt(target.copy(), value.copy(), operator);
+    }
 }
@@ -56,4 +56,9 @@ public final class BinaryExpr implements Expression {
         left.visit(consumer);
         right.visit(consumer);
     }
+
+    @Override
+    public BinaryExpr copy() {
+        return new BinaryExpr(operator, left.copy(), right.copy());
+    }
 }
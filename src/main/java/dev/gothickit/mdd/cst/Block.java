@@ -35,6 +35,16 @@ public final class Block implements Code {
         consumer.accept(this);
     }
 
+    @Override
+    public Block copy() {
+        var copy = new Block();
+        for (Code code : this.code) {
+            copy.addCode(code.copy());
+        }
+
+        return copy;
+    }
+
     @Override
     public void getSource(SourceBuilder builder) {
         for (Code code : code) {
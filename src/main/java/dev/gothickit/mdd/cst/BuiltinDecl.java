@@ -3,7 +3,7 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 public final class BuiltinDecl implements TypeDecl {
     public static final BuiltinDecl INT = new BuiltinDecl(BuiltinType.INT);
@@ -30,7 +30,7 @@ public final class BuiltinDecl implements TypeDecl {
     }
 
     @Override
-    public DaedalusSymbol getSymbol() {
+    public Symbol getSymbol() {
         return null;
     }
 
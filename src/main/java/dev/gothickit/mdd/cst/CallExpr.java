@@ -5,6 +5,7 @@ package dev.gothickit.mdd.cst;
 import dev.gothickit.mdd.output.SourceBuilder;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -51,6 +52,16 @@ public final class CallExpr implements Expression {
         }
     }
 
+    @Override
+    public CallExpr copy() {
+        var copies = new ArrayList<Expression>(arguments.size());
+        for (Expression argument : arguments) {
+            copies.add(argument.copy());
+        }
+
+        return new CallExpr(target, copies);
+    }
+
     public Expression getArgument(int i) {
         return arguments.get(i);
     }
@@ -3,23 +3,23 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 import java.util.List;
 
 public final class ClassDecl implements TypeDecl, Scope, Decl {
-    private final DaedalusSymbol symbol;
+    private final Symbol symbol;
     private final String name;
     private final List<VariableDecl> members;
 
-    public ClassDecl(DaedalusSymbol symbolId, String name, List<VariableDecl> members) {
+    public ClassDecl(Symbol symbolId, String name, List<VariableDecl> members) {
         this.symbol = symbolId;
         this.name = name;
         this.members = members;
     }
 
     @Override
-    public DaedalusSymbol getSymbol() {
+    public Symbol getSymbol() {
         return symbol;
     }
 
@@ -11,4 +11,10 @@ import java.util.function.Consumer;
  */
 public interface Code extends Syntax {
     void visit(@NotNull Consumer<@NotNull Code> consumer);
+
+    /**
+     * Creates a deep copy of this node, which can be modified without affecting the original. Immutable nodes and
+     * referenced declarations may be shared between the copy and the original.
+     */
+    @NotNull Code copy();
 }
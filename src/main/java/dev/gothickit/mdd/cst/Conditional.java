@@ -2,5 +2,9 @@
 // SPDX-License-Identifier: MIT-Modern-Variant
 package dev.gothickit.mdd.cst;
 
+import org.jetbrains.annotations.NotNull;
+
 public interface Conditional extends Statement {
+    @Override
+    @NotNull Conditional copy();
 }
@@ -2,10 +2,10 @@
 // SPDX-License-Identifier: MIT-Modern-Variant
 package dev.gothickit.mdd.cst;
 
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 public interface Decl extends Syntax {
-    DaedalusSymbol getSymbol();
+    Symbol getSymbol();
 
     String getName();
 }
@@ -34,4 +34,9 @@ public final class ElseStmt implements Conditional {
         consumer.accept(this);
         body.visit(consumer);
     }
+
+    @Override
+    public ElseStmt copy() {
+        return new ElseStmt(body.copy());
+    }
 }
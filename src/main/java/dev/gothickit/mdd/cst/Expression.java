@@ -2,8 +2,12 @@
 // SPDX-License-Identifier: MIT-Modern-Variant
 package dev.gothickit.mdd.cst;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * Base class for all Daedalus expression syntax.
  */
 public interface Expression extends Code {
+    @Override
+    @NotNull Expression copy();
 }
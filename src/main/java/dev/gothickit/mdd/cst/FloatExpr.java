@@ -27,4 +27,9 @@ public final class FloatExpr implements Expression {
     public void visit(@NotNull Consumer<@NotNull Code> consumer) {
         consumer.accept(this);
     }
+
+    @Override
+    public FloatExpr copy() {
+        return this;
+    }
 }
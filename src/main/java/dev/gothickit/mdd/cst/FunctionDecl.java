@@ -3,19 +3,19 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 import java.util.List;
 
 public final class FunctionDecl implements Syntax, Scope, Decl {
-    private final DaedalusSymbol symbol;
+    private final Symbol symbol;
     private final TypeDecl rtype;
     private final String name;
     private final List<VariableDecl> parameters;
     private final List<VariableDecl> locals;
     private Block body;
 
-    public FunctionDecl(DaedalusSymbol symbol, TypeDecl rtype, String name, List<VariableDecl> parameters, List<VariableDecl> locals, Block body) {
+    public FunctionDecl(Symbol symbol, TypeDecl rtype, String name, List<VariableDecl> parameters, List<VariableDecl> locals, Block body) {
         this.rtype = rtype;
         this.name = name;
         this.parameters = parameters;
@@ -29,7 +29,7 @@ public final class FunctionDecl implements Syntax, Scope, Decl {
     }
 
     @Override
-    public DaedalusSymbol getSymbol() {
+    public Symbol getSymbol() {
         return symbol;
     }
 
@@ -49,6 +49,14 @@ public final class FunctionDecl implements Syntax, Scope, Decl {
         this.body = body;
     }
 
+    /**
+     * Creates a copy of this declaration with the given body. Setting the body of either one afterward does not affect
+     * the other.
+     */
+    public FunctionDecl withBody(Block body) {
+        return new FunctionDecl(symbol, rtype, name, parameters, locals, body);
+    }
+
     @Override
     public List<VariableDecl> getMembers() {
         return locals;
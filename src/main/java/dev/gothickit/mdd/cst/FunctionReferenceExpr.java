@@ -14,11 +14,20 @@ public class FunctionReferenceExpr implements Expression {
         this.function = function;
     }
 
+    public FunctionDecl getFunction() {
+        return function;
+    }
+
     @Override
     public void visit(@NotNull Consumer<@NotNull Code> consumer) {
         consumer.accept(this);
     }
 
+    @Override
+    public FunctionReferenceExpr copy() {
+        return this;
+    }
+
     @Override
     public void getSource(SourceBuilder builder) {
         builder.reference(function.getName(), function.getSymbol().getIndex());
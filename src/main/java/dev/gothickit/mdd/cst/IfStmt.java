@@ -57,4 +57,9 @@ public final class IfStmt implements Conditional {
             next.visit(consumer);
         }
     }
+
+    @Override
+    public IfStmt copy() {
+        return new IfStmt(condition.copy(), body.copy(), next == null ? null : next.copy());
+    }
 }
@@ -3,28 +3,28 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 public final class InstanceDecl extends VariableDecl {
     private final ClassDecl parentClass;
     private final PrototypeDecl parentPrototype;
     private Block body;
 
-    public InstanceDecl(DaedalusSymbol symbol, String name, Block body) {
+    public InstanceDecl(Symbol symbol, String name, Block body) {
         super(symbol, BuiltinDecl.INSTANCE, name, null);
         this.parentClass = null;
         this.parentPrototype = null;
         this.body = body;
     }
 
-    public InstanceDecl(DaedalusSymbol symbol, String name, ClassDecl parentClass, Block body) {
+    public InstanceDecl(Symbol symbol, String name, ClassDecl parentClass, Block body) {
         super(symbol, parentClass, name, null);
         this.parentClass = parentClass;
         this.parentPrototype = null;
         this.body = body;
     }
 
-    public InstanceDecl(DaedalusSymbol symbol, String name, PrototypeDecl parentPrototype, Block body) {
+    public InstanceDecl(Symbol symbol, String name, PrototypeDecl parentPrototype, Block body) {
         super(symbol, parentPrototype.getParentClass(), name, null);
         this.parentClass = parentPrototype.getParentClass();
         this.parentPrototype = parentPrototype;
@@ -47,6 +47,20 @@ public final class InstanceDecl extends VariableDecl {
         this.body = body;
     }
 
+    /**
+     * Creates a copy of this declaration with the given body. Setting the body of either one afterward does not affect
+     * the other.
+     */
+    public InstanceDecl withBody(Block body) {
+        if (parentPrototype != null) {
+            return new InstanceDecl(getSymbol(), getName(), parentPrototype, body);
+        } else if (parentClass != null) {
+            return new InstanceDecl(getSymbol(), getName(), parentClass, body);
+        }
+
+        return new InstanceDecl(getSymbol(), getName(), body);
+    }
+
     @Override
     public void getSource(SourceBuilder builder) {
         if (body == null) {
@@ -27,4 +27,9 @@ public final class IntExpr implements Expression {
     public void visit(@NotNull Consumer<@NotNull Code> consumer) {
         consumer.accept(this);
     }
+
+    @Override
+    public IntExpr copy() {
+        return this;
+    }
 }
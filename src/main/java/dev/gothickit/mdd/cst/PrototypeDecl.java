@@ -3,15 +3,15 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 public final class PrototypeDecl implements Syntax, Decl {
-    private final DaedalusSymbol symbol;
+    private final Symbol symbol;
     private final String name;
     private final ClassDecl parent;
     private Block body;
 
-    public PrototypeDecl(DaedalusSymbol symbol, String name, ClassDecl parent, Block body) {
+    public PrototypeDecl(Symbol symbol, String name, ClassDecl parent, Block body) {
         this.name = name;
         this.parent = parent;
         this.body = body;
@@ -19,7 +19,7 @@ public final class PrototypeDecl implements Syntax, Decl {
     }
 
     @Override
-    public DaedalusSymbol getSymbol() {
+    public Symbol getSymbol() {
         return symbol;
     }
 
@@ -44,6 +44,14 @@ public final class PrototypeDecl implements Syntax, Decl {
         this.body = body;
     }
 
+    /**
+     * Creates a copy of this declaration with the given body. Setting the body of either one afterward does not affect
+     * the other.
+     */
+    public PrototypeDecl withBody(Block body) {
+        return new PrototypeDecl(symbol, name, parent, body);
+    }
+
     @Override
     public void getSource(SourceBuilder builder) {
         builder.keyword("prototype").space().text(getName()).text("(").type(parent).text(") {").indented(b -> {
@@ -30,4 +30,9 @@ public class ReturnStmt implements Code {
             value.visit(consumer);
         }
     }
+
+    @Override
+    public ReturnStmt copy() {
+        return new ReturnStmt(value == null ? null : value.copy());
+    }
 }
@@ -27,4 +27,9 @@ public final class StringExpr implements Expression {
     public void visit(@NotNull Consumer<@NotNull Code> consumer) {
         consumer.accept(this);
     }
+
+    @Override
+    public StringExpr copy() {
+        return this;
+    }
 }
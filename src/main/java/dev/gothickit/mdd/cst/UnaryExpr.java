@@ -40,4 +40,9 @@ public final class UnaryExpr implements Expression {
         consumer.accept(this);
         right.visit(consumer);
     }
+
+    @Override
+    public UnaryExpr copy() {
+        return new UnaryExpr(operator, right.copy());
+    }
 }
@@ -3,12 +3,12 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
 public final class VariableArrayDecl extends VariableDecl {
     private final Expression size;
 
-    public VariableArrayDecl(DaedalusSymbol symbol, TypeDecl type, String name, Expression size, Expression value) {
+    public VariableArrayDecl(Symbol symbol, TypeDecl type, String name, Expression size, Expression value) {
         super(symbol, type, name, value);
         this.size = size;
     }
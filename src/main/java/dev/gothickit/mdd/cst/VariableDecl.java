@@ -3,18 +3,18 @@
 package dev.gothickit.mdd.cst;
 
 import dev.gothickit.mdd.output.SourceBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.function.Consumer;
 
 public class VariableDecl implements Statement, Decl {
-    private final DaedalusSymbol symbol;
+    private final Symbol symbol;
     private final TypeDecl type;
     private final String name;
     private final Expression value;
 
-    public VariableDecl(DaedalusSymbol symbol, TypeDecl type, String name, Expression value) {
+    public VariableDecl(Symbol symbol, TypeDecl type, String name, Expression value) {
         this.symbol = symbol;
         this.type = type;
         this.name = name;
@@ -26,7 +26,7 @@ public class VariableDecl implements Statement, Decl {
     }
 
     @Override
-    public DaedalusSymbol getSymbol() {
+    public Symbol getSymbol() {
         return symbol;
     }
 
@@ -60,4 +60,12 @@ public class VariableDecl implements Statement, Decl {
             value.visit(consumer);
         }
     }
+
+    /**
+     * Declarations are shared by all code referencing them, so they are never copied.
+     */
+    @Override
+    public VariableDecl copy() {
+        return this;
+    }
 }
@@ -3,60 +3,159 @@
 package dev.gothickit.mdd.decompiler;
 
 import dev.gothickit.mdd.cst.*;
-import dev.gothickit.zenkit.daedalus.*;
+import dev.gothickit.mdd.script.CodeSegment;
+import dev.gothickit.mdd.script.ScopeIndex;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.Symbol;
+import dev.gothickit.mdd.script.SymbolTable;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import dev.gothickit.zenkit.daedalus.DaedalusOpcode;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 public class Decompiler {
-    private final DaedalusScript script;
-    private final List<DaedalusSymbol> symbols; // Cached to improve performance
-    private final List<Decl> topLevelNodes = new ArrayList<>();
-    private final HashMap<Integer, Syntax> cache = new HashMap<>();
-    private DecompilerOptions options = new DecompilerOptions();
-
-    public Decompiler(DaedalusScript script) {
+    private static final int MAX_CACHED_OPTIONS = 4;
+
+    private final Script script;
+    private final SymbolTable symbols;
+    private final ScopeIndex scopes;
+    private final CodeSegment code;
+    private final int[] topLevelIndices;
+    private final BitSet topLevel;
+    private final List<Decl> topLevelNodes;
+    private final AtomicReferenceArray<Decl> cache;
+    private final AtomicReferenceArray<Block> rawWithLiterals;
+    private final AtomicReferenceArray<Block> rawWithoutLiterals;
+    private final LinkedHashMap<DecompilerOptions, AtomicReferenceArray<Block>> bodies = new LinkedHashMap<>(MAX_CACHED_OPTIONS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DecompilerOptions, AtomicReferenceArray<Block>> eldest) {
+            return size() > MAX_CACHED_OPTIONS;
+        }
+    };
+    private volatile DecompilerOptions options = new DecompilerOptions();
+
+    /**
+     * Creates a new decompiler for the given script. Declarations are not decompiled up front. Instead, they are
+     * created and cached when they are first requested, so constructing a decompiler only takes a single pass over
+     * the symbol table.
+     * <p>
+     * Declarations and code may be decompiled by multiple threads at the same time. Each symbol is always mapped to
+     * the same declaration, and each body is only published once it has been fully decompiled and post-processed.
+     * The options may be changed at any time: every call to {@link #decompileCode(Decl)} uses the options which were
+     * set when it started from beginning to end. Only bodies post-processed using the current options are set on
+     * their declarations; calls which were still running when the options changed only return their body.
+     */
+    public Decompiler(Script script) {
         this.script = script;
-        this.symbols = script.getSymbols();
-
-        for (var sym : symbols) {
-            this.decompileDeclaration(sym);
+        this.symbols = script.getSymbolTable();
+        this.scopes = symbols.getScopes();
+        this.code = script.getCode();
+        this.cache = new AtomicReferenceArray<>(symbols.getSymbolCount());
+        this.rawWithLiterals = new AtomicReferenceArray<>(symbols.getSymbolCount());
+        this.rawWithoutLiterals = new AtomicReferenceArray<>(symbols.getSymbolCount());
+
+        this.topLevel = new BitSet(symbols.getSymbolCount());
+        for (var i = 0; i < symbols.getSymbolCount(); ++i) {
+            if (isTopLevelSymbol(i)) {
+                topLevel.set(i);
+            }
         }
+
+        this.topLevelIndices = topLevel.stream().toArray();
+        this.topLevelNodes = new LazyDeclList<>(this::decompileDeclaration, topLevelIndices);
     }
 
+    /**
+     * @return All top-level declarations ordered by symbol index. Declarations are decompiled as they are accessed.
+     */
     public List<Decl> getTopLevelSymbols() {
         return topLevelNodes;
     }
 
-    private ClassDecl decompileClassDecl(DaedalusSymbol clazz) {
+    /**
+     * @return The symbol indices of all top-level declarations. Does not decompile any declarations.
+     */
+    public int[] getTopLevelIndices() {
+        return topLevelIndices.clone();
+    }
+
+    /**
+     * @return Whether the symbol with the given index is a class with members or a function with local variables. Does
+     * not decompile any declarations.
+     */
+    public boolean hasMembers(int index) {
+        if (index < 0 || index >= symbols.getSymbolCount()) {
+            return false;
+        }
+
+        return scopes.getEnd(index) > scopes.getLocalsStart(index);
+    }
+
+    /**
+     * @return Whether the symbol with the given index is a top-level declaration. Does not decompile any declarations.
+     */
+    public boolean isTopLevel(int index) {
+        return index >= 0 && topLevel.get(index);
+    }
+
+    private boolean isTopLevelSymbol(int index) {
+        var type = symbols.getType(index);
+        if (type == DaedalusDataType.CLASS || type == DaedalusDataType.PROTOTYPE) {
+            return true;
+        } else if (type == DaedalusDataType.FUNCTION && symbols.isConst(index)) {
+            return true;
+        }
+
+        return !symbols.getName(index).contains(".");
+    }
+
+    private boolean isTopLevel(Decl decl) {
+        return isTopLevel(decl.getSymbol().getIndex());
+    }
+
+    public CodeSegment getCode() {
+        return code;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    /**
+     * Stores the given declaration in the cache unless another thread already created a declaration for the same
+     * symbol, in which case that declaration is returned instead.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Decl> T intern(int index, T decl) {
+        return this.cache.compareAndSet(index, null, decl) ? decl : (T) this.cache.get(index);
+    }
+
+    private ClassDecl decompileClassDecl(Symbol clazz) {
         assert clazz.getType() == DaedalusDataType.CLASS;
 
-        if (this.cache.containsKey(clazz.getIndex())) {
+        if (this.cache.get(clazz.getIndex()) != null) {
             return (ClassDecl) this.cache.get(clazz.getIndex());
         }
 
         // Find class member variables
-        var members = new ArrayList<VariableDecl>();
-        var prefix = clazz.getName() + ".";
-        for (var i = clazz.getIndex() + 1; i < symbols.size(); ++i) {
-            var sym = symbols.get(i);
-            if (!sym.getName().startsWith(prefix)) {
-                break;
-            }
-
-            members.add(this.decompileVariableDecl(sym));
-        }
+        var index = clazz.getIndex();
+        var members = new LazyDeclList<>(this::decompileVariableDecl, index, scopes.getLocalsStart(index), scopes.getEnd(index));
 
         ClassDecl decl = new ClassDecl(clazz, clazz.getName(), members);
-        this.topLevelNodes.add(decl);
-        this.cache.put(clazz.getIndex(), decl);
-        return decl;
+        return this.intern(clazz.getIndex(), decl);
     }
 
-    private PrototypeDecl decompilePrototypeDecl(DaedalusSymbol prototype) {
+    private PrototypeDecl decompilePrototypeDecl(Symbol prototype) {
         assert prototype.getType() == DaedalusDataType.PROTOTYPE;
 
-        if (this.cache.containsKey(prototype.getIndex())) {
+        if (this.cache.get(prototype.getIndex()) != null) {
             return (PrototypeDecl) this.cache.get(prototype.getIndex());
         }
 
@@ -65,32 +164,28 @@ public class Decompiler {
             name = name.substring(name.lastIndexOf('.') + 1);
         }
 
-        var parent = prototype.getParent() == -1 || prototype.getParent() >= symbols.size() ? null : symbols.get(prototype.getParent());
+        var parent = symbols.getSymbol(prototype.getParent());
         assert parent != null;
         assert parent.getType() == DaedalusDataType.CLASS;
 
         PrototypeDecl decl = new PrototypeDecl(prototype, name, this.decompileClassDecl(parent), null);
-        this.topLevelNodes.add(decl);
-        this.cache.put(prototype.getIndex(), decl);
-        return decl;
+        return this.intern(prototype.getIndex(), decl);
     }
 
-    private InstanceDecl decompileInstanceDecl(DaedalusSymbol instance) {
+    private InstanceDecl decompileInstanceDecl(Symbol instance) {
         assert instance.getType() == DaedalusDataType.INSTANCE;
 
-        if (this.cache.containsKey(instance.getIndex())) {
+        if (this.cache.get(instance.getIndex()) != null) {
             return (InstanceDecl) this.cache.get(instance.getIndex());
         }
 
-        boolean toplevel = true;
         String name = instance.getName();
         if (name.contains(".")) {
             name = name.substring(name.lastIndexOf('.') + 1);
-            toplevel = false;
         }
 
         InstanceDecl decl;
-        var parent = instance.getParent() == -1 || instance.getParent() >= symbols.size() ? null : symbols.get(instance.getParent());
+        var parent = symbols.getSymbol(instance.getParent());
         if (parent == null) {
             decl = new InstanceDecl(instance, name, null);
         } else if (parent.getType() == DaedalusDataType.PROTOTYPE) {
@@ -101,15 +196,10 @@ public class Decompiler {
             throw new RuntimeException("Unsupported instance parent: " + parent.getType());
         }
 
-        if (toplevel) {
-            topLevelNodes.add(decl);
-        }
-
-        this.cache.put(instance.getIndex(), decl);
-        return decl;
+        return this.intern(instance.getIndex(), decl);
     }
 
-    private Expression decompileVariableValue(DaedalusSymbol variable) {
+    private Expression decompileVariableValue(Symbol variable) {
         if (!variable.isConst()) {
             return null;
         }
@@ -118,54 +208,52 @@ public class Decompiler {
             case FLOAT -> {
                 if (variable.getSize() > 1) {
                     var vals = new ArrayList<Expression>();
-                    for (short i = 0; i < variable.getSize(); ++i) {
-                        vals.add(new FloatExpr(variable.getFloat(i, null)));
+                    for (var i = 0; i < variable.getSize(); ++i) {
+                        vals.add(new FloatExpr(variable.getFloat(i)));
                     }
                     return new ArrayExpr(vals);
                 } else {
-                    return new FloatExpr(variable.getFloat((short) 0, null));
+                    return new FloatExpr(variable.getFloat(0));
                 }
             }
             case INT -> {
                 if (variable.getSize() > 1) {
                     var vals = new ArrayList<Expression>();
-                    for (short i = 0; i < variable.getSize(); ++i) {
-                        vals.add(new IntExpr(variable.getInt(i, null)));
+                    for (var i = 0; i < variable.getSize(); ++i) {
+                        vals.add(new IntExpr(variable.getInt(i)));
                     }
                     return new ArrayExpr(vals);
                 } else {
-                    return new IntExpr(variable.getInt((short) 0, null));
+                    return new IntExpr(variable.getInt(0));
                 }
             }
             case STRING -> {
                 if (variable.getSize() > 1) {
                     var vals = new ArrayList<Expression>();
-                    for (short i = 0; i < variable.getSize(); ++i) {
-                        vals.add(new StringExpr(variable.getString(i, null)));
+                    for (var i = 0; i < variable.getSize(); ++i) {
+                        vals.add(new StringExpr(variable.getString(i)));
                     }
                     return new ArrayExpr(vals);
                 } else {
-                    return new StringExpr(variable.getString((short) 0, null));
+                    return new StringExpr(variable.getString(0));
                 }
             }
             default -> throw new RuntimeException("Unsupported variable type: " + variable.getType());
         }
     }
 
-    private VariableDecl decompileVariableDecl(DaedalusSymbol variable) {
+    private VariableDecl decompileVariableDecl(Symbol variable) {
         if (variable.getType() == DaedalusDataType.INSTANCE) {
             return this.decompileInstanceDecl(variable);
         }
 
-        if (this.cache.containsKey(variable.getIndex())) {
+        if (this.cache.get(variable.getIndex()) != null) {
             return (VariableDecl) this.cache.get(variable.getIndex());
         }
 
-        boolean toplevel = true;
         String name = variable.getName();
         if (name.contains(".")) {
             name = name.substring(name.lastIndexOf('.') + 1);
-            toplevel = false;
         }
 
         VariableDecl decl;
@@ -202,44 +290,23 @@ public class Decompiler {
             default -> throw new RuntimeException("Unsupported variable type: " + variable.getType());
         }
 
-        if (toplevel) {
-            topLevelNodes.add(decl);
-        }
-
-        this.cache.put(variable.getIndex(), decl);
-        return decl;
+        return this.intern(variable.getIndex(), decl);
     }
 
-    private FunctionDecl decompileFunctionDecl(DaedalusSymbol function) {
+    private FunctionDecl decompileFunctionDecl(Symbol function) {
         assert function.getType() == DaedalusDataType.FUNCTION && function.isConst();
 
-        if (this.cache.containsKey(function.getIndex())) {
+        if (this.cache.get(function.getIndex()) != null) {
             return (FunctionDecl) this.cache.get(function.getIndex());
         }
 
-        // Find function parameters
-        var params = new ArrayList<VariableDecl>();
-        for (var i = 0; i < function.getSize(); ++i) {
-            var sym = symbols.get(function.getIndex() + 1 + i);
-            params.add(this.decompileVariableDecl(sym));
-        }
-
-        // Find function local variables
-        var locals = new ArrayList<VariableDecl>();
-        var prefix = function.getName() + ".";
-        for (var i = function.getIndex() + 1 + function.getSize(); i < symbols.size(); ++i) {
-            var sym = symbols.get(i);
-            if (!sym.getName().startsWith(prefix)) {
-                break;
-            }
-
-            locals.add(this.decompileVariableDecl(sym));
-        }
+        // Find function parameters and local variables
+        var index = function.getIndex();
+        var params = new LazyDeclList<>(this::decompileVariableDecl, -1, scopes.getStart(index), scopes.getLocalsStart(index));
+        var locals = new LazyDeclList<>(this::decompileVariableDecl, index, scopes.getLocalsStart(index), scopes.getEnd(index));
 
         var decl = new FunctionDecl(function, this.decompileType(function.getReturnType()), function.getName(), params, locals, null);
-        this.topLevelNodes.add(decl);
-        this.cache.put(function.getIndex(), decl);
-        return decl;
+        return this.intern(function.getIndex(), decl);
     }
 
     private TypeDecl decompileType(DaedalusDataType type) {
@@ -254,7 +321,7 @@ public class Decompiler {
         };
     }
 
-    private Decl decompileDeclaration(DaedalusSymbol symbol) {
+    private Decl decompileDeclaration(Symbol symbol) {
         if (symbol.getType() == DaedalusDataType.FUNCTION && symbol.isConst()) {
             return this.decompileFunctionDecl(symbol);
         } else if (symbol.getType() == DaedalusDataType.PROTOTYPE) {
@@ -274,30 +341,32 @@ public class Decompiler {
         return this.decompileDeclaration(sym);
     }
 
-    private Expression decompileExpression(Stack<DecompilerStackFrame> stack) {
-        return this.decompileExpression(stack, false);
+    private Expression decompileExpression(DecompilerOptions options, Stack<DecompilerStackFrame> stack) {
+        return this.decompileExpression(options, stack, false);
     }
 
-    private Expression decompileExpression(Stack<DecompilerStackFrame> stack, boolean isFloat) {
+    private Expression decompileExpression(DecompilerOptions options, Stack<DecompilerStackFrame> stack, boolean isFloat) {
         if (stack.empty()) {
             return new IntExpr(0);
         }
 
         var top = stack.pop();
-        return switch (top.instruction().op()) {
+        var opcode = code.getOpcode(top.address());
+        var data = code.getData(top.address());
+        return switch (opcode) {
             case ADD, SUB, MUL, DIV, MOD, OR, ANDB, LT, GT, ORR, AND, LSL, LSR, LTE, EQ, NEQ, GTE -> {
-                var op = BinaryOp.fromOpcode(top.instruction().op());
-                var lhs = this.decompileExpression(stack);
-                var rhs = this.decompileExpression(stack);
+                var op = BinaryOp.fromOpcode(opcode);
+                var lhs = this.decompileExpression(options, stack);
+                var rhs = this.decompileExpression(options, stack);
                 yield new BinaryExpr(op, lhs, rhs);
             }
             case PLUS, NEGATE, NOT, CMPL, NOP -> {
-                var op = UnaryOp.fromOpcode(top.instruction().op());
-                var rhs = this.decompileExpression(stack);
+                var op = UnaryOp.fromOpcode(opcode);
+                var rhs = this.decompileExpression(options, stack);
                 yield new UnaryExpr(op, rhs);
             }
             case BL -> {
-                var sym = script.getSymbolByAddress(top.instruction().data);
+                var sym = script.getSymbolByAddress(data);
                 if (sym == null) {
                     throw new IllegalStateException("BL target not found");
                 }
@@ -310,14 +379,14 @@ public class Decompiler {
                 var args = new ArrayList<Expression>();
 
                 for (int i = 0; i < fn.getParameters().size(); ++i) {
-                    args.add(this.decompileExpression(stack));
+                    args.add(this.decompileExpression(options, stack));
                 }
 
                 Collections.reverse(args);
                 yield new CallExpr(fn, args);
             }
             case BE -> {
-                var sym = script.getSymbolByIndex(top.instruction().data);
+                var sym = script.getSymbolByIndex(data);
                 if (sym == null) {
                     throw new IllegalStateException("BE target not found");
                 }
@@ -330,7 +399,7 @@ public class Decompiler {
                 var args = new ArrayList<Expression>();
 
                 for (int i = 0; i < fn.getParameters().size(); ++i) {
-                    args.add(this.decompileExpression(stack));
+                    args.add(this.decompileExpression(options, stack));
                 }
 
                 Collections.reverse(args);
@@ -338,12 +407,12 @@ public class Decompiler {
             }
             case PUSHI -> {
                 if (isFloat) {
-                    yield new FloatExpr(Float.intBitsToFloat(top.instruction().data));
+                    yield new FloatExpr(Float.intBitsToFloat(data));
                 }
-                yield new IntExpr(top.instruction().data);
+                yield new IntExpr(data);
             }
             case PUSHV, PUSHVI -> {
-                var sym = script.getSymbolByIndex(top.instruction().data);
+                var sym = script.getSymbolByIndex(data);
                 if (sym == null) {
                     throw new IllegalStateException("PUSHV target not found");
                 }
@@ -361,23 +430,23 @@ public class Decompiler {
                 yield new AccessExpr(this.decompileVariableDecl(sym), null, ctx);
             }
             case PUSHVV -> {
-                var sym = script.getSymbolByIndex(top.instruction().data);
+                var sym = script.getSymbolByIndex(data);
                 if (sym == null) {
                     throw new IllegalStateException("PUSHVV target not found");
                 }
 
                 var ctx = top.context() != null ? this.decompileInstanceDecl(top.context()) : null;
-                yield new AccessExpr(this.decompileVariableDecl(sym), new IntExpr(top.instruction().index), ctx);
+                yield new AccessExpr(this.decompileVariableDecl(sym), new IntExpr(code.getIndex(top.address())), ctx);
             }
 
-            default -> throw new IllegalStateException("Unexpected instruction: " + top.instruction().op());
+            default -> throw new IllegalStateException("Unexpected instruction: " + opcode);
         };
     }
 
-    private void decompileRestOfStack(Block block, Stack<DecompilerStackFrame> stack, boolean beforeLast) {
+    private void decompileRestOfStack(DecompilerOptions options, Block block, Stack<DecompilerStackFrame> stack, boolean beforeLast) {
         var missed = new ArrayList<Expression>();
         while (!stack.empty()) {
-            missed.add(this.decompileExpression(stack));
+            missed.add(this.decompileExpression(options, stack));
         }
         Collections.reverse(missed);
 
@@ -396,17 +465,23 @@ public class Decompiler {
         }
     }
 
-    private BlockDecompilationResult decompileBlock(int baseAddress, int limitAddress, int ignoreFunctionParameters, boolean returnsValue, boolean returnExists) {
+    private BlockDecompilationResult decompileBlock(DecompilerOptions options, int baseAddress, int limitAddress, int ignoreFunctionParameters, boolean returnsValue, boolean returnExists) {
         int offset = baseAddress;
-        DaedalusSymbol context = null;
+        Symbol context = null;
         Stack<DecompilerStackFrame> stack = new Stack<>();
         Block block = new Block();
 
         do {
-            DaedalusInstruction instruction = script.getInstruction(offset);
-            offset += instruction.size;
+            if (!code.contains(offset)) {
+                throw new IllegalStateException("No instruction at address " + offset);
+            }
+
+            var address = offset;
+            var opcode = code.getOpcode(address);
+            var data = code.getData(address);
+            offset += code.getSize(address);
 
-            switch (instruction.op()) {
+            switch (opcode) {
                 case MOVI, ADDMOVI, SUBMOVI, MULMOVI, DIVMOVI, MOVS, MOVSS, MOVVF, MOVF, MOVVI -> {
                     if (ignoreFunctionParameters != 0) {
                         stack.pop(); // Target;
@@ -414,14 +489,14 @@ public class Decompiler {
                         break;
                     }
 
-                    var op = AssignOp.fromOpcode(instruction.op());
-                    var lhs = this.decompileExpression(stack);
+                    var op = AssignOp.fromOpcode(opcode);
+                    var lhs = this.decompileExpression(options, stack);
                     if (!(lhs instanceof AccessExpr lhsAccess)) {
                         throw new IllegalStateException("LHS of assignment must be AccessExpr");
                     }
 
-                    var rhs = this.decompileExpression(stack, instruction.op() == DaedalusOpcode.MOVF);
-                    this.decompileRestOfStack(block, stack, false);
+                    var rhs = this.decompileExpression(options, stack, opcode == DaedalusOpcode.MOVF);
+                    this.decompileRestOfStack(options, block, stack, false);
                     block.addCode(new AssignStmt(lhsAccess, rhs, op));
                 }
                 case NOP -> {
@@ -430,17 +505,17 @@ public class Decompiler {
                 case RSR -> {
                     if (returnsValue && !stack.isEmpty()) {
                         // FIXME(lmichaelis): Functions returing float!
-                        var value = new ReturnStmt(this.decompileExpression(stack));
-                        this.decompileRestOfStack(block, stack, false);
+                        var value = new ReturnStmt(this.decompileExpression(options, stack));
+                        this.decompileRestOfStack(options, block, stack, false);
                         block.addCode(value);
                     } else if (!returnExists) {
                         // NOTE(lmichaelis): If return statements exit, but we don't return a value then this
                         //                   must be a redundant `return`-statement at the very end of `void`
                         //                   function, so we can ignore it.
-                        this.decompileRestOfStack(block, stack, false);
+                        this.decompileRestOfStack(options, block, stack, false);
                         block.addCode(new ReturnStmt(null));
                     } else {
-                        this.decompileRestOfStack(block, stack, false);
+                        this.decompileRestOfStack(options, block, stack, false);
                     }
 
 
@@ -449,9 +524,9 @@ public class Decompiler {
                     }
                 }
                 case BL -> {
-                    stack.push(new DecompilerStackFrame(instruction, context));
+                    stack.push(new DecompilerStackFrame(address, context));
 
-                    var sym = script.getSymbolByAddress(instruction.data);
+                    var sym = script.getSymbolByAddress(data);
                     if (sym == null) {
                         throw new IllegalStateException("BL target not found");
                     }
@@ -459,41 +534,41 @@ public class Decompiler {
                     if (sym.getType() == DaedalusDataType.PROTOTYPE) {
                         stack.pop(); // Don't emit prototype calls
                     } else if (sym.getReturnType() == DaedalusDataType.VOID) {
-                        var call = this.decompileExpression(stack);
-                        this.decompileRestOfStack(block, stack, false);
+                        var call = this.decompileExpression(options, stack);
+                        this.decompileRestOfStack(options, block, stack, false);
                         block.addCode(call);
                     }
                 }
                 case BE -> {
-                    stack.push(new DecompilerStackFrame(instruction, context));
+                    stack.push(new DecompilerStackFrame(address, context));
 
-                    var sym = script.getSymbolByIndex(instruction.data);
+                    var sym = script.getSymbolByIndex(data);
                     if (sym == null) {
                         throw new IllegalStateException("BE target not found");
                     }
 
                     if (sym.getReturnType() == DaedalusDataType.VOID) {
-                        var call = this.decompileExpression(stack);
-                        this.decompileRestOfStack(block, stack, false);
+                        var call = this.decompileExpression(options, stack);
+                        this.decompileRestOfStack(options, block, stack, false);
                         block.addCode(call);
                     }
                 }
                 case B -> {
-                    this.decompileRestOfStack(block, stack, false);
-                    return new BlockDecompilationResult(block, DaedalusOpcode.B, instruction.data);
+                    this.decompileRestOfStack(options, block, stack, false);
+                    return new BlockDecompilationResult(block, DaedalusOpcode.B, data);
                 }
                 case BZ -> {
-                    var condition = this.decompileExpression(stack);
-                    var body = this.decompileBlock(offset, instruction.data, 0, returnsValue, false);
+                    var condition = this.decompileExpression(options, stack);
+                    var body = this.decompileBlock(options, offset, data, 0, returnsValue, false);
                     var if_ = new IfStmt(condition, body.block, null);
 
-                    this.decompileRestOfStack(block, stack, false);
+                    this.decompileRestOfStack(options, block, stack, false);
                     block.addCode(if_);
 
-                    offset = instruction.data;
+                    offset = data;
                     if (body.opcode() == DaedalusOpcode.B) {
                         // This is an else block!
-                        body = this.decompileBlock(instruction.data, body.address(), 0, returnExists, false);
+                        body = this.decompileBlock(options, data, body.address(), 0, returnExists, false);
                         if_.setNext(new ElseStmt(body.block));
                         offset = body.address();
                     } else if (body.opcode() != DaedalusOpcode.NOP) {
@@ -501,19 +576,19 @@ public class Decompiler {
                     }
                 }
                 case GMOVI -> {
-                    context = script.getSymbolByIndex(instruction.data);
+                    context = script.getSymbolByIndex(data);
                 }
                 default -> {
-                    stack.push(new DecompilerStackFrame(instruction, context));
+                    stack.push(new DecompilerStackFrame(address, context));
                 }
             }
         } while (offset < limitAddress);
 
-        this.decompileRestOfStack(block, stack, false);
+        this.decompileRestOfStack(options, block, stack, false);
         return new BlockDecompilationResult(block, DaedalusOpcode.NOP, offset);
     }
 
-    protected void decompilePostprocess(Scope scope, Block block) {
+    protected void decompilePostprocess(DecompilerOptions options, Scope scope, Block block) {
         block.visit(c -> {
             if (c instanceof CallExpr call) {
                 // Replace function parameters if required:
@@ -535,7 +610,7 @@ public class Decompiler {
                         var sym = script.getSymbolByIndex(arg.getValue());
                         if (sym != null && sym.getType() == DaedalusDataType.INSTANCE) {
                             var decl = this.decompileInstanceDecl(sym);
-                            if (sym.isConst() || topLevelNodes.contains(decl) || (scope != null && scope.hasMember(decl))) {
+                            if (sym.isConst() || isTopLevel(decl) || (scope != null && scope.hasMember(decl))) {
                                 call.replaceArgument(i, new AccessExpr(decl, null, null));
                             }
                         }
@@ -555,7 +630,7 @@ public class Decompiler {
                     var sym = script.getSymbolByIndex(arg.getValue());
                     if (sym != null && sym.getType() == DaedalusDataType.INSTANCE) {
                         var decl = this.decompileInstanceDecl(sym);
-                        if (sym.isConst() || topLevelNodes.contains(decl) || (scope != null && scope.hasMember(decl))) {
+                        if (sym.isConst() || isTopLevel(decl) || (scope != null && scope.hasMember(decl))) {
                             assign.setValue(new AccessExpr(decl, null, null));
                         }
                     }
@@ -569,41 +644,106 @@ public class Decompiler {
         });
     }
 
+    /**
+     * Decompiles and post-processes the code of the given function, prototype or instance using the current options
+     * and sets it as the declaration's body. The raw decompilation result is cached separately from the post-processed
+     * bodies, so changing the options only re-runs post-processing, except when toggling string literal generation,
+     * which is part of the decompilation itself. Post-processed bodies are cached for the most recently used
+     * {@link #MAX_CACHED_OPTIONS} sets of options.
+     */
     public Block decompileCode(@NotNull Decl exec) {
         var sym = exec.getSymbol();
         if (sym == null || sym.isExternal()) {
             return null;
         }
 
-        Block body = null;
-        if (exec instanceof FunctionDecl fn) {
-            if (fn.getBody() == null) {
-                var dcr = this.decompileBlock(sym.getAddress(), Integer.MAX_VALUE, fn.getParameters().size(), fn.getReturnType() != BuiltinDecl.VOID, true);
-                fn.setBody(dcr.block);
+        var index = sym.getIndex();
+        var options = this.options;
+
+        AtomicReferenceArray<Block> processed;
+        synchronized (this.bodies) {
+            processed = this.bodies.computeIfAbsent(options, k -> new AtomicReferenceArray<>(cache.length()));
+        }
+
+        var body = processed.get(index);
+        if (body == null) {
+            // String literals are generated while decompiling the raw block, so there is one raw cache for each value
+            // of that option.
+            var raws = options.generateStringLiterals() ? this.rawWithLiterals : this.rawWithoutLiterals;
+
+            var raw = raws.get(index);
+            if (raw == null) {
+                if (exec instanceof FunctionDecl fn) {
+                    raw = this.decompileBlock(options, sym.getAddress(), Integer.MAX_VALUE, fn.getParameters().size(), fn.getReturnType() != BuiltinDecl.VOID, true).block;
+                } else if (exec instanceof PrototypeDecl || (exec instanceof InstanceDecl && sym.isConst())) {
+                    raw = this.decompileBlock(options, sym.getAddress(), Integer.MAX_VALUE, 0, false, true).block;
+                } else {
+                    return null;
+                }
+
+                if (!raws.compareAndSet(index, null, raw)) {
+                    raw = raws.get(index);
+                }
             }
 
-            body = fn.getBody();
-        } else if (exec instanceof PrototypeDecl fn) {
-            if (fn.getBody() == null) {
-                var dcr = this.decompileBlock(sym.getAddress(), Integer.MAX_VALUE, 0, false, true);
-                fn.setBody(dcr.block);
+            // The raw block is never modified, so post-processing runs on a private copy which is only published once
+            // it is complete.
+            body = raw.copy();
+            this.decompilePostprocess(options, exec instanceof Scope s ? s : null, body);
+
+            if (!processed.compareAndSet(index, null, body)) {
+                body = processed.get(index);
             }
+        }
 
-            body = fn.getBody();
-        } else if (exec instanceof InstanceDecl fn && sym.isConst()) {
-            if (fn.getBody() == null) {
-                var dcr = this.decompileBlock(sym.getAddress(), Integer.MAX_VALUE, 0, false, true);
-                fn.setBody(dcr.block);
+        synchronized (this.bodies) {
+            // A call which started before the options were changed must not replace the body of the new options.
+            if (options != this.options) {
+                return body;
             }
 
-            body = fn.getBody();
+            if (exec instanceof FunctionDecl fn) {
+                fn.setBody(body);
+            } else if (exec instanceof PrototypeDecl fn) {
+                fn.setBody(body);
+            } else if (exec instanceof InstanceDecl fn) {
+                fn.setBody(body);
+            }
         }
 
-        if (body != null) {
-            this.decompilePostprocess(exec instanceof Scope s ? s : null, body);
+        return body;
+    }
+
+    /**
+     * Decompiles the code of all top-level declarations using the current options on a dedicated pool of the given
+     * number of threads. Declarations which fail to decompile do not stop the others. Their failures are rethrown
+     * afterward as one exception, caused by the first of them and with all others suppressed.
+     */
+    public void decompileAll(int parallelism) throws InterruptedException {
+        var failures = new ConcurrentLinkedQueue<RuntimeException>();
+        var pool = new ForkJoinPool(Math.max(1, parallelism));
+
+        try {
+            pool.submit(() -> IntStream.range(0, topLevelIndices.length).parallel().forEach(i -> {
+                try {
+                    this.decompileCode(topLevelNodes.get(i));
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
 
-        return body;
+        if (!failures.isEmpty()) {
+            var iterator = failures.iterator();
+            var message = "Failed to decompile " + failures.size() + " declarations";
+            var failure = new IllegalStateException(message, iterator.next());
+            iterator.forEachRemaining(failure::addSuppressed);
+            throw failure;
+        }
     }
 
     public String[] formatSymbolInfo(@NotNull Decl decl) {
@@ -616,11 +756,11 @@ public class Decompiler {
                         Type: %s
                         Return Type: %s
                         Flags:
-                        &nbsp;Const: %b
-                        &nbsp;Member: %b
-                        &nbsp;External: %b
-                        &nbsp;Merged: %b
-                        &nbsp;Generated: %b
+                          Const: %b
+                          Member: %b
+                          External: %b
+                          Merged: %b
+                          Generated: %b
                         Parent Index: %d
                         Member Offset: %d
                         Class Size: %d
@@ -636,17 +776,70 @@ public class Decompiler {
                 orig.getLineStart(), orig.getLineCount(), orig.getCharStart(), orig.getCharCount()).split("\n");
     }
 
+    /**
+     * Changes the options used for post-processing. Bodies which have already been decompiled are kept and are
+     * post-processed again using the new options the next time {@link #decompileCode(Decl)} is called for them.
+     */
     public void setOptions(DecompilerOptions decompilerOptions) {
-        this.options = decompilerOptions;
-
-        for (var decl : topLevelNodes) {
-            if (decl instanceof FunctionDecl fn) {
-                fn.setBody(null);
-            } else if (decl instanceof InstanceDecl fn) {
-                fn.setBody(null);
-            } else if (decl instanceof PrototypeDecl fn) {
-                fn.setBody(null);
+        synchronized (this.bodies) {
+            this.options = decompilerOptions;
+        }
+    }
+
+    public DecompilerOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * A list of declarations backed by a range or an array of symbol indices. Elements are decompiled on access. If
+     * the list contains the members of a scope, membership is checked in constant time using the scope index.
+     */
+    private final class LazyDeclList<T extends Decl> extends AbstractList<T> implements RandomAccess {
+        private final Function<Symbol, T> loader;
+        private final int[] indices;
+        private final int scope;
+        private final int start;
+        private final int size;
+
+        LazyDeclList(Function<Symbol, T> loader, int scope, int start, int end) {
+            this.loader = loader;
+            this.indices = null;
+            this.scope = scope;
+            this.start = start;
+            this.size = Math.max(0, Math.min(end, symbols.getSymbolCount()) - start);
+        }
+
+        LazyDeclList(Function<Symbol, T> loader, int[] indices) {
+            this.loader = loader;
+            this.indices = indices;
+            this.scope = -1;
+            this.start = 0;
+            this.size = indices.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (indices != null || !(o instanceof Decl decl) || decl.getSymbol() == null) {
+                return super.contains(o);
+            }
+
+            var index = decl.getSymbol().getIndex();
+            if (index < 0 || index >= cache.length() || cache.get(index) != decl) {
+                return false;
             }
+
+            return scope == -1 ? index >= start && index < start + size : scopes.isLocal(scope, index);
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return loader.apply(symbols.getSymbol(indices == null ? start + index : indices[index]));
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 
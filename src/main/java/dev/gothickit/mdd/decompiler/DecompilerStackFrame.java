@@ -2,8 +2,7 @@
 // SPDX-License-Identifier: MIT-Modern-Variant
 package dev.gothickit.mdd.decompiler;
 
-import dev.gothickit.zenkit.daedalus.DaedalusInstruction;
-import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import dev.gothickit.mdd.script.Symbol;
 
-public record DecompilerStackFrame(DaedalusInstruction instruction, DaedalusSymbol context) {
+public record DecompilerStackFrame(int address, Symbol context) {
 }
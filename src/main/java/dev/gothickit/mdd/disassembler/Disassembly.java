@@ -0,0 +1,164 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+import dev.gothickit.mdd.script.CodeSegment;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.Symbol;
+import dev.gothickit.zenkit.daedalus.DaedalusOpcode;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The instructions of a single function, prototype or instance. Only the addresses of the instructions are collected
+ * up front. The text of each column is formatted on demand, so that views only pay for the rows they actually show.
+ */
+public final class Disassembly {
+    private static final int ADDRESS_WIDTH = 20;
+
+    private final Script script;
+    private final CodeSegment code;
+    private final int[] addresses;
+
+    private Disassembly(final @NotNull Script script, final int @NotNull [] addresses) {
+        this.script = script;
+        this.code = script.getCode();
+        this.addresses = addresses;
+    }
+
+    /**
+     * Collects the instructions of the given symbol's code. The code ends at the first return instruction after which
+     * no jump target remains. Symbols without code produce an empty disassembly.
+     */
+    public static @NotNull Disassembly of(final @NotNull Script script, final @NotNull Symbol symbol) {
+        if (symbol.getAddress() < 1 || symbol.isExternal()) {
+            return new Disassembly(script, new int[0]);
+        }
+
+        return ofCode(script, symbol.getAddress());
+    }
+
+    /**
+     * Collects the instructions of the code starting at the given address, like {@link #of(Script, Symbol)}. Unlike
+     * it, this includes code starting at address zero.
+     */
+    static @NotNull Disassembly ofCode(final @NotNull Script script, int address) {
+        var code = script.getCode();
+        var addresses = new int[64];
+        var count = 0;
+
+        var offset = address;
+        var after = offset;
+
+        while (code.contains(offset)) {
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+            }
+
+            addresses[count++] = offset;
+
+            var op = code.getOpcode(offset);
+            var data = code.getData(offset);
+            offset += code.getSize(offset);
+
+            if (op == DaedalusOpcode.RSR && offset > after) {
+                break;
+            } else if (op == DaedalusOpcode.B || op == DaedalusOpcode.BZ) {
+                after = Math.max(after, data);
+            }
+        }
+
+        return new Disassembly(script, Arrays.copyOf(addresses, count));
+    }
+
+    /**
+     * Collects all instructions of the script's code segment, regardless of which symbol they belong to.
+     */
+    public static @NotNull Disassembly ofSegment(final @NotNull Script script) {
+        var code = script.getCode();
+        var addresses = new int[Math.max(16, code.getLength() / 4)];
+        var count = 0;
+
+        for (var offset = 0; code.contains(offset); offset += code.getSize(offset)) {
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+            }
+
+            addresses[count++] = offset;
+        }
+
+        return new Disassembly(script, Arrays.copyOf(addresses, count));
+    }
+
+    public int getInstructionCount() {
+        return addresses.length;
+    }
+
+    public int getAddress(int instruction) {
+        return addresses[instruction];
+    }
+
+    public @NotNull String formatAddress(int instruction) {
+        return Hex.toPaddedHex(addresses[instruction], ADDRESS_WIDTH);
+    }
+
+    /**
+     * @return The raw bytes of the given instruction as space separated hex digits.
+     */
+    public @NotNull String formatBytes(int instruction) {
+        var address = addresses[instruction];
+        var size = code.getSize(address);
+        var builder = new StringBuilder(size * 3);
+
+        Hex.appendByte(builder, code.getRawOpcode(address));
+
+        if (size > 1) {
+            var data = code.getData(address);
+            for (var i = 0; i < 4; ++i) {
+                Hex.appendByte(builder.append(' '), data >>> (i * 8));
+            }
+        }
+
+        if (size > 5) {
+            Hex.appendByte(builder.append(' '), code.getIndex(address));
+        }
+
+        return builder.toString();
+    }
+
+    public @NotNull String formatInstruction(int instruction) {
+        var address = addresses[instruction];
+        var op = code.getOpcode(address);
+        var data = code.getData(address);
+
+        return switch (op) {
+            case BL, BE, PUSHV, PUSHVI, GMOVI, B, BZ -> op.name() + " 0x" + Hex.toHex(data);
+            case PUSHVV -> op.name() + " 0x" + Hex.toHex(data) + " #" + code.getIndex(address);
+            case PUSHI -> op.name() + " " + data;
+            default -> op.name();
+        };
+    }
+
+    /**
+     * @return The name of the symbol referenced by the given instruction or an empty string.
+     */
+    public @NotNull String formatComment(int instruction) {
+        var address = addresses[instruction];
+        var data = code.getData(address);
+
+        var symbol = switch (code.getOpcode(address)) {
+            case BL -> script.getSymbolByAddress(data);
+            case BE, PUSHV, PUSHVI, GMOVI, PUSHVV -> script.getSymbolByIndex(data);
+            default -> null;
+        };
+
+        if (symbol == null) {
+            return "";
+        } else if (code.getOpcode(address) == DaedalusOpcode.PUSHVV) {
+            return symbol.getName() + "[" + code.getIndex(address) + "]";
+        }
+
+        return symbol.getName();
+    }
+}
@@ -0,0 +1,170 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.SymbolTable;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Computes a 64-bit fingerprint of the declaration and code of every function, prototype and instance of a script,
+ * which can be compared against the fingerprints of another build of the same script to find out which of them
+ * changed. Fingerprints are independent of where things ended up in the script: jump targets are taken relative to
+ * the start of the code and referenced symbols are identified by their name and type instead of their index or
+ * address. Everything else which ends up in the decompiled code, like parameters, local variables and inlined string
+ * literals, is part of the fingerprint.
+ * <p>
+ * Post-processing turns integers into floats, function references or instance references depending on the type of
+ * the parameter or variable they are passed to. Calls therefore include the parameters of the called function, and
+ * assignments include the type of their target, which is part of every referenced symbol.
+ * <p>
+ * Fingerprints depend on the decompiler options, since they decide whether string literals are inlined. Inlined
+ * literals are identified by their value, so that adding a literal does not change every function after it.
+ */
+public final class Fingerprints {
+    private static final long NONE = 0;
+
+    private final Script script;
+    private final SymbolTable table;
+    private final boolean inlineLiterals;
+
+    private Fingerprints(final @NotNull Script script, final @NotNull DecompilerOptions options) {
+        this.script = script;
+        this.table = script.getSymbolTable();
+        this.inlineLiterals = options.generateStringLiterals();
+    }
+
+    /**
+     * @return The fingerprint of every symbol by symbol index. Symbols without code have a fingerprint of zero.
+     */
+    public static long @NotNull [] of(final @NotNull Script script, final @NotNull DecompilerOptions options) {
+        var fingerprints = new Fingerprints(script, options);
+        var result = new long[fingerprints.table.getSymbolCount()];
+
+        for (var i = 0; i < result.length; ++i) {
+            result[i] = fingerprints.hasCode(i) ? fingerprints.compute(i) : NONE;
+        }
+
+        return result;
+    }
+
+    private boolean hasCode(int index) {
+        if (table.isMember(index) || table.isExternal(index) || table.getAddress(index) < 0) {
+            return false;
+        }
+
+        // The same declarations the decompiler decompiles code for. The first of them starts at address zero.
+        var type = table.getType(index);
+        return (type == DaedalusDataType.FUNCTION && table.isConst(index)) || type == DaedalusDataType.PROTOTYPE ||
+                (type == DaedalusDataType.INSTANCE && table.isConst(index));
+    }
+
+    private long compute(int index) {
+        var hash = mixSymbol(17, index);
+
+        var scopes = table.getScopes();
+        for (var i = scopes.getStart(index); i < scopes.getEnd(index); ++i) {
+            hash = mixSymbol(hash, i);
+        }
+
+        var code = script.getCode();
+        var start = table.getAddress(index);
+        var disassembly = Disassembly.ofCode(script, start);
+
+        for (var i = 0; i < disassembly.getInstructionCount(); ++i) {
+            var address = disassembly.getAddress(i);
+            var data = code.getData(address);
+            hash = mix(hash, code.getRawOpcode(address));
+
+            hash = switch (code.getOpcode(address)) {
+                case BL -> mixCall(hash, table.getIndexByAddress(data));
+                case B, BZ -> mix(hash, data - start);
+                case PUSHV, PUSHVI -> isInlinedLiteral(data) ? mixValues(mix(hash, -2), data) : mixSymbol(hash, data);
+                case BE -> mixCall(hash, data);
+                case GMOVI -> mixSymbol(hash, data);
+                case PUSHVV -> mix(mixSymbol(hash, data), code.getIndex(address));
+                case PUSHI -> {
+                    // Integers may be resolved to function or instance references by the decompiler, so those which are
+                    // valid symbol indices are identified by the symbol. Only changing an integer to exactly the new
+                    // index of the same symbol goes unnoticed.
+                    var valid = data >= 0 && data < table.getSymbolCount();
+                    yield valid ? mixSymbol(mix(hash, -3), data) : mix(hash, data);
+                }
+                default -> hash;
+            };
+        }
+
+        // Zero is reserved for symbols without code.
+        return hash == NONE ? 1 : hash;
+    }
+
+    private boolean isInlinedLiteral(int index) {
+        return inlineLiterals && index >= 0 && index < table.getSymbolCount() && table.isGenerated(index) &&
+                table.isConst(index) && !table.isMember(index);
+    }
+
+    private long mixCall(long hash, int function) {
+        hash = mixSymbol(hash, function);
+        if (function < 0 || function >= table.getSymbolCount()) {
+            return hash;
+        }
+
+        var scopes = table.getScopes();
+        for (var i = scopes.getStart(function); i < scopes.getLocalsStart(function); ++i) {
+            hash = mixSymbol(hash, i);
+        }
+
+        return hash;
+    }
+
+    private long mixSymbol(long hash, int index) {
+        if (index < 0 || index >= table.getSymbolCount()) {
+            return mix(hash, -1);
+        }
+
+        hash = mix(hash, table.getName(index));
+        hash = mix(hash, table.getType(index).ordinal());
+        hash = mix(hash, table.getReturnType(index).ordinal());
+        hash = mix(hash, table.getSize(index));
+        hash = mix(hash, (table.isConst(index) ? 1 : 0) | (table.isMember(index) ? 2 : 0) |
+                (table.isExternal(index) ? 4 : 0) | (table.isGenerated(index) ? 8 : 0));
+
+        var parent = table.getParent(index);
+        hash = mix(hash, parent >= 0 && parent < table.getSymbolCount() ? table.getName(parent) : "");
+
+        return hash;
+    }
+
+    private long mixValues(long hash, int index) {
+        hash = mix(hash, table.getType(index).ordinal());
+
+        var symbol = table.getSymbol(index);
+        for (var i = 0; i < table.getSize(index); ++i) {
+            hash = switch (table.getType(index)) {
+                case INT -> mix(hash, symbol.getInt(i));
+                case FLOAT -> mix(hash, Float.floatToRawIntBits(symbol.getFloat(i)));
+                case STRING -> mix(hash, Objects.requireNonNullElse(symbol.getString(i), ""));
+                default -> hash;
+            };
+        }
+
+        return hash;
+    }
+
+    private static long mix(long hash, final @NotNull String value) {
+        hash = mix(hash, value.length());
+        for (var i = 0; i < value.length(); ++i) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,57 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+/**
+ * Hexadecimal formatting using lookup tables, replacing {@link String#format(String, Object...)} in hot paths.
+ */
+final class Hex {
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Hex() {
+    }
+
+    /**
+     * @return The given value as lowercase hex, equivalent to {@link Integer#toHexString(int)}.
+     */
+    static String toHex(int value) {
+        var length = getDigitCount(value);
+        var chars = new char[length];
+        write(chars, 0, value, length);
+        return new String(chars);
+    }
+
+    /**
+     * @return The given value as lowercase hex, padded with spaces on the right to the given width. Equivalent to
+     * {@code String.format("%-<width>x", value)}.
+     */
+    static String toPaddedHex(int value, int width) {
+        var length = getDigitCount(value);
+        var chars = new char[Math.max(length, width)];
+        write(chars, 0, value, length);
+
+        for (var i = length; i < chars.length; ++i) {
+            chars[i] = ' ';
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Appends the given byte as two lowercase hex digits, equivalent to {@code String.format("%02x", value & 0xFF)}.
+     */
+    static void appendByte(final StringBuilder builder, int value) {
+        builder.append(DIGITS[(value >> 4) & 0xF]).append(DIGITS[value & 0xF]);
+    }
+
+    private static int getDigitCount(int value) {
+        return Math.max(1, (Integer.SIZE - Integer.numberOfLeadingZeros(value) + 3) / 4);
+    }
+
+    private static void write(char[] chars, int offset, int value, int length) {
+        for (var i = length - 1; i >= 0; --i) {
+            chars[offset + i] = DIGITS[value & 0xF];
+            value >>>= 4;
+        }
+    }
+}
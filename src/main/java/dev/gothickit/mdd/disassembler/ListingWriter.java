@@ -0,0 +1,116 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+import dev.gothickit.mdd.script.Script;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a listing of the entire code segment of a script in a single pass, e.g. for diffing two versions of a
+ * script. Every function, prototype and instance is marked at the address its code starts at. The listing is
+ * streamed to its destination line by line.
+ */
+public final class ListingWriter {
+    private static final int BYTES_WIDTH = 19;
+    private static final int INSTRUCTION_WIDTH = 28;
+
+    public enum Format {
+        /**
+         * A human-readable listing with one instruction per line and a label before each symbol.
+         */
+        TEXT,
+
+        /**
+         * Comma separated values with one instruction per row: address, symbol, bytes, instruction and comment.
+         */
+        CSV,
+    }
+
+    private final Script script;
+    private final Format format;
+
+    public ListingWriter(final @NotNull Script script, final @NotNull Format format) {
+        this.script = script;
+        this.format = format;
+    }
+
+    /**
+     * @return The number of instructions written.
+     */
+    public int write(final @NotNull Path path, final @NotNull Charset charset) throws IOException {
+        try (var writer = Files.newBufferedWriter(path, charset)) {
+            return write(writer);
+        }
+    }
+
+    /**
+     * @return The number of instructions written.
+     */
+    public int write(final @NotNull Writer writer) throws IOException {
+        var table = script.getSymbolTable();
+        var disassembly = Disassembly.ofSegment(script);
+        var line = new StringBuilder(128);
+        String symbol = "";
+
+        if (format == Format.CSV) {
+            writer.write("address,symbol,bytes,instruction,comment\n");
+        }
+
+        for (var i = 0; i < disassembly.getInstructionCount(); ++i) {
+            var index = table.getIndexByAddress(disassembly.getAddress(i));
+            if (index != -1) {
+                symbol = table.getName(index);
+
+                if (format == Format.TEXT) {
+                    writer.write("\n" + symbol + ":\n");
+                }
+            }
+
+            var bytes = disassembly.formatBytes(i);
+            var instruction = disassembly.formatInstruction(i);
+            var comment = disassembly.formatComment(i);
+
+            line.setLength(0);
+            if (format == Format.TEXT) {
+                line.append(disassembly.formatAddress(i)).append(bytes);
+                pad(line, BYTES_WIDTH - bytes.length());
+                line.append(instruction);
+
+                if (!comment.isEmpty()) {
+                    pad(line, INSTRUCTION_WIDTH - instruction.length());
+                    line.append("; ").append(comment);
+                }
+            } else {
+                line.append(Hex.toHex(disassembly.getAddress(i))).append(',');
+                csv(line, symbol).append(',');
+                line.append(bytes).append(',');
+                csv(line, instruction).append(',');
+                csv(line, comment);
+            }
+
+            writer.append(line).append('\n');
+        }
+
+        return disassembly.getInstructionCount();
+    }
+
+    private static void pad(final @NotNull StringBuilder builder, int count) {
+        for (var i = 0; i < count; ++i) {
+            builder.append(' ');
+        }
+    }
+
+    private static StringBuilder csv(final @NotNull StringBuilder builder, final @NotNull String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return builder.append(value);
+        }
+
+        return builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
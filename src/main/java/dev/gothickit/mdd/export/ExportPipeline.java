@@ -0,0 +1,298 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+import dev.gothickit.mdd.cache.SourceCache;
+import dev.gothickit.mdd.cst.Block;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.FunctionDecl;
+import dev.gothickit.mdd.cst.InstanceDecl;
+import dev.gothickit.mdd.cst.PrototypeDecl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.output.SourceRecorder;
+import dev.gothickit.mdd.output.WriterTextBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Exports all top-level symbols of a script into one source file per original file index using two overlapping
+ * stages connected by a bounded queue: decompilation and writing. Rendering is not a stage of its own, the writing
+ * stage renders each file straight into a {@link WriterTextBuilder}. Disk I/O thus starts while the rest of the script
+ * is still being decompiled, and rendered sources are never held in memory, as they would be while being handed over
+ * from a render stage to the writers.
+ * <p>
+ * Decompiled declarations are detached copies holding the body decompiled for them. Changing the options of the
+ * decompiler while exporting therefore cannot change the code of a file between decompiling and writing it.
+ * <p>
+ * If a {@link SourceCache} is set, declarations found in it are not decompiled at all and all others are added to it.
+ */
+public final class ExportPipeline {
+    private static final int QUEUE_CAPACITY_PER_THREAD = 2;
+    private static final DecompiledFile DECOMPILED_END = new DecompiledFile(-1, List.of(), null, 0);
+
+    private final Decompiler decompiler;
+    private final int threads;
+    private final List<PendingFile> files = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile boolean cancelled = false;
+    private Charset charset = StandardCharsets.UTF_8;
+    private SourceCache sources = null;
+    private Consumer<FileStatistics> listener = stats -> {
+    };
+
+    public ExportPipeline(final @NotNull Decompiler decompiler, int threads) {
+        this.decompiler = decompiler;
+        this.threads = Math.max(1, threads);
+
+        // Group the top-level symbols by the file they were originally declared in.
+        var table = decompiler.getSymbolTable();
+        var groups = new TreeMap<Integer, List<Integer>>();
+        for (var index : decompiler.getTopLevelIndices()) {
+            groups.computeIfAbsent(table.getFileIndex(index), k -> new ArrayList<>()).add(index);
+        }
+
+        for (var entry : groups.entrySet()) {
+            files.add(new PendingFile(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    /**
+     * Sets a listener which is notified on one of the writer threads after every file that has been written.
+     */
+    public void setListener(final @NotNull Consumer<FileStatistics> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the character set the source files are written in. Defaults to UTF-8.
+     */
+    public void setCharset(final @NotNull Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the cache to take sources from instead of decompiling them. The cache must have been created for the
+     * options of the decompiler.
+     */
+    public void setSources(final @Nullable SourceCache sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Stops all stages as soon as possible. A running {@link #run(Path)} then throws a {@link CancellationException}.
+     */
+    public void cancel() {
+        cancelled = true;
+        interruptAll();
+    }
+
+    public ExportStatistics run(final @NotNull Path output) throws IOException, InterruptedException {
+        if (!workers.isEmpty()) {
+            throw new IllegalStateException("The export pipeline can only be run once");
+        }
+
+        var start = System.nanoTime();
+        Files.createDirectories(output);
+
+        var pending = new ConcurrentLinkedQueue<>(files);
+        var decompiled = new ArrayBlockingQueue<DecompiledFile>(threads * QUEUE_CAPACITY_PER_THREAD);
+        var decompilersLeft = new AtomicInteger(threads);
+        var stats = new ConcurrentLinkedQueue<FileStatistics>();
+
+        // Decompiling and rendering are both CPU-bound, so both stages get one thread per requested thread. The bounded
+        // queue makes the faster stage wait for the slower one.
+        for (var i = 0; i < threads; ++i) {
+            addWorker("decompile-" + i, () -> {
+                for (var file = pending.poll(); file != null && !cancelled; file = pending.poll()) {
+                    decompiled.put(decompileFile(file));
+                }
+
+                if (decompilersLeft.decrementAndGet() == 0) {
+                    putEnd(decompiled, DECOMPILED_END, threads);
+                }
+            });
+        }
+
+        for (var i = 0; i < threads; ++i) {
+            addWorker("write-" + i, () -> {
+                for (var file = decompiled.take(); file != DECOMPILED_END; file = decompiled.take()) {
+                    var stat = writeFile(output, file);
+                    stats.add(stat);
+                    listener.accept(stat);
+                }
+            });
+        }
+
+        for (var worker : workers) {
+            worker.start();
+        }
+
+        try {
+            for (var worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+
+        if (cancelled) {
+            throw new CancellationException("The export was cancelled");
+        }
+
+        if (failure.get() != null) {
+            if (failure.get() instanceof IOException io) {
+                throw io;
+            }
+
+            throw new RuntimeException(failure.get());
+        }
+
+        var written = new ArrayList<>(stats);
+        written.sort(Comparator.comparingInt(FileStatistics::fileIndex));
+
+        var symbols = written.stream().mapToInt(FileStatistics::symbols).sum();
+        return new ExportStatistics(symbols, System.nanoTime() - start, written);
+    }
+
+    private @NotNull DecompiledFile decompileFile(final @NotNull PendingFile file) {
+        var start = System.nanoTime();
+        var decls = new ArrayList<Decl>(file.symbols().size());
+        var recordings = sources != null ? new ArrayList<byte[]>(file.symbols().size()) : null;
+
+        for (var index : file.symbols()) {
+            Decl decl = decompiler.decompileDecl(index);
+
+            try {
+                var recording = sources != null ? sources.get(index) : null;
+                if (recording == null) {
+                    decl = withBody(decl, decompiler.decompileCode(decl));
+                }
+
+                if (recordings != null) {
+                    if (recording == null) {
+                        recording = new SourceRecorder().syntax(decl).text(";").toByteArray();
+                        sources.put(index, recording);
+                    }
+
+                    recordings.add(recording);
+                }
+
+                decls.add(decl);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        return new DecompiledFile(file.fileIndex(), decls, recordings, System.nanoTime() - start);
+    }
+
+    private @NotNull FileStatistics writeFile(final @NotNull Path output, final @NotNull DecompiledFile file) throws IOException {
+        var start = System.nanoTime();
+
+        try (var builder = new WriterTextBuilder(output.resolve(file.fileIndex() + ".d"), charset)) {
+            for (var i = 0; i < file.decls().size(); ++i) {
+                var decl = file.decls().get(i);
+
+                try {
+                    builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline();
+
+                    if (file.recordings() != null) {
+                        SourceRecorder.replay(file.recordings().get(i), builder);
+                    } else {
+                        builder.syntax(decl).text(";");
+                    }
+
+                    builder.newline().newline();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return new FileStatistics(file.fileIndex(), file.decls().size(), file.nanos() + System.nanoTime() - start);
+    }
+
+    /**
+     * Detaches the given declaration from the one shared through the decompiler, whose body is replaced whenever
+     * anyone decompiles it with different options.
+     */
+    private static @NotNull Decl withBody(final @NotNull Decl decl, final @Nullable Block body) {
+        if (decl instanceof FunctionDecl fn) {
+            return fn.withBody(body);
+        } else if (decl instanceof PrototypeDecl fn) {
+            return fn.withBody(body);
+        } else if (decl instanceof InstanceDecl fn) {
+            return fn.withBody(body);
+        }
+
+        return decl;
+    }
+
+    private void addWorker(final @NotNull String name, final @NotNull Stage stage) {
+        var thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException ignored) {
+                // The pipeline was cancelled or another stage failed.
+            } catch (Exception e) {
+                // Cancelling interrupts writes in progress, which then fail with a ClosedByInterruptException. That is
+                // the cancellation taking effect and not a failure of its own.
+                if (!cancelled && failure.compareAndSet(null, e)) {
+                    interruptAll();
+                }
+            }
+        }, "mdd-export-" + name);
+
+        thread.setDaemon(true);
+        workers.add(thread);
+    }
+
+    private void interruptAll() {
+        for (var worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private static <T> void putEnd(final @NotNull BlockingQueue<T> queue, T end, int count) throws InterruptedException {
+        for (var i = 0; i < count; ++i) {
+            queue.put(end);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private record PendingFile(int fileIndex, List<Integer> symbols) {
+    }
+
+    private record DecompiledFile(int fileIndex, List<Decl> decls, @Nullable List<byte[]> recordings, long nanos) {
+    }
+}
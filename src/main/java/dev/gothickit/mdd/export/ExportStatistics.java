@@ -0,0 +1,11 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+import java.util.List;
+
+public record ExportStatistics(int symbols, long nanos, List<FileStatistics> files) {
+    public double getSymbolsPerSecond() {
+        return nanos == 0 ? 0 : symbols / (nanos / 1e9);
+    }
+}
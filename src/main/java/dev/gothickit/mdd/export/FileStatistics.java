@@ -0,0 +1,6 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+public record FileStatistics(int fileIndex, int symbols, long nanos) {
+}
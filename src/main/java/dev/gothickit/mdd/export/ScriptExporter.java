@@ -0,0 +1,51 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+import dev.gothickit.mdd.cache.SourceCache;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.Script;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Decompiles a whole script into one source file per original file index without any user interface.
+ *
+ * @see ExportPipeline
+ */
+public class ScriptExporter {
+    private final Script script;
+    private final int threads;
+    private final Charset charset;
+    private SourceCache sources = null;
+
+    public ScriptExporter(final @NotNull Script script, int threads) {
+        this(script, threads, StandardCharsets.UTF_8);
+    }
+
+    public ScriptExporter(final @NotNull Script script, int threads, final @NotNull Charset charset) {
+        this.script = script;
+        this.threads = Math.max(1, threads);
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the cache to take sources from instead of decompiling them. The cache must have been created for the
+     * default decompiler options.
+     */
+    public void setSources(final @Nullable SourceCache sources) {
+        this.sources = sources;
+    }
+
+    public ExportStatistics export(final @NotNull Path output) throws IOException, InterruptedException {
+        var pipeline = new ExportPipeline(new Decompiler(script), threads);
+        pipeline.setCharset(charset);
+        pipeline.setSources(sources);
+        return pipeline.run(output);
+    }
+}
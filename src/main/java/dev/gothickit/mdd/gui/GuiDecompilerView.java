@@ -4,39 +4,95 @@ package dev.gothickit.mdd.gui;
 
 import dev.gothickit.mdd.cst.Decl;
 import dev.gothickit.mdd.decompiler.Decompiler;
-import dev.gothickit.mdd.output.HtmlBuilder;
+import dev.gothickit.mdd.output.DocumentBuilder;
+import dev.gothickit.mdd.output.SourceRecorder;
+import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
-import javax.swing.event.HyperlinkEvent;
-import javax.swing.text.html.HTMLEditorKit;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.StyledDocument;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.function.Consumer;
 
-public class GuiDecompilerView extends JEditorPane {
+public class GuiDecompilerView extends JTextPane {
     public GuiDecompilerView(Consumer<Integer> onClick) {
         super();
         setEditable(false);
         setMaximumSize(new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE));
         setMinimumSize(new Dimension(0, 0));
-        setEditorKit(new HTMLEditorKit());
 
-        addHyperlinkListener(event -> {
-            if (event.getEventType() != HyperlinkEvent.EventType.ACTIVATED) {
-                return;
+        var mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                var reference = getReferenceAt(e.getPoint());
+                if (reference != -1) {
+                    onClick.accept(reference);
+                }
             }
 
-            int id = Integer.parseInt(event.getDescription().substring(1));
-            onClick.accept(id);
-        });
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                var cursor = getReferenceAt(e.getPoint()) != -1 ? Cursor.HAND_CURSOR : Cursor.TEXT_CURSOR;
+                setCursor(Cursor.getPredefinedCursor(cursor));
+            }
+        };
+
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
     }
 
-    public void setSymbol(Decl decl, Decompiler decompiler) {
-        var builder = new HtmlBuilder();
+    /**
+     * Renders the given declaration into a new document. Can be called from any thread.
+     */
+    public static @NotNull StyledDocument render(final @NotNull Decl decl, final @NotNull Decompiler decompiler) {
+        var builder = new DocumentBuilder();
         builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";");
-        setText(builder.toString());
+        return builder.build();
+    }
+
+    /**
+     * Renders the code of the given declaration into a recording, which can be stored and shown later using
+     * {@link #replay(Decl, Decompiler, byte[])}. Can be called from any thread.
+     */
+    public static byte @NotNull [] record(final @NotNull Decl decl) {
+        var recorder = new SourceRecorder();
+        recorder.syntax(decl).text(";");
+        return recorder.toByteArray();
+    }
+
+    /**
+     * Renders a recording created by {@link #record(Decl)} into a new document. The symbol information is not part of
+     * the recording, it is always taken from the given declaration. Can be called from any thread.
+     */
+    public static @NotNull StyledDocument replay(
+            final @NotNull Decl decl,
+            final @NotNull Decompiler decompiler,
+            final byte @NotNull [] recording
+    ) {
+        var builder = new DocumentBuilder();
+        builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline();
+        SourceRecorder.replay(recording, builder);
+        return builder.build();
+    }
+
+    public void setSource(final @NotNull StyledDocument document) {
+        setDocument(document);
+        setCaretPosition(0);
     }
 
     public void clear() {
-        setText("");
+        setDocument(new DefaultStyledDocument());
+    }
+
+    private int getReferenceAt(Point point) {
+        var position = viewToModel2D(point);
+        if (position < 0) {
+            return -1;
+        }
+
+        var element = getStyledDocument().getCharacterElement(position);
+        return element.getAttributes().getAttribute(DocumentBuilder.REFERENCE) instanceof Integer index ? index : -1;
     }
 }
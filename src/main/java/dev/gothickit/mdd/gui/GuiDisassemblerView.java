@@ -3,25 +3,25 @@
 package dev.gothickit.mdd.gui;
 
 import dev.gothickit.mdd.cst.Decl;
-import dev.gothickit.zenkit.daedalus.DaedalusScript;
+import dev.gothickit.mdd.disassembler.Disassembly;
+import dev.gothickit.mdd.script.Script;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 public class GuiDisassemblerView extends JPanel {
     private final JTable table;
+    private final DisassemblyTableModel model = new DisassemblyTableModel();
 
     public GuiDisassemblerView() {
         super();
         this.setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         this.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 
-        table = new JTable(new Object[][]{}, new Object[]{"Address", "Bytes", "Disassembly", "Comment"});
+        table = new JTable(model);
         table.setShowGrid(false);
         table.setRowSelectionAllowed(false);
         table.setColumnSelectionAllowed(false);
@@ -34,112 +34,68 @@ public class GuiDisassemblerView extends JPanel {
         this.add(new JScrollPane(table));
     }
 
-    public void setSymbol(final @NotNull DaedalusScript script, final @NotNull Decl decl) {
-        var model = new DefaultTableModel();
-        model.setColumnIdentifiers(new String[]{"Address", "Bytes", "Disassembly", "Comment"});
+    /**
+     * Collects the instructions of the given declaration. Can be called from any thread. The text of the rows is
+     * only formatted once they are shown.
+     */
+    public static @NotNull Disassembly disassemble(final @NotNull Script script, final @NotNull Decl decl) {
+        return Disassembly.of(script, decl.getSymbol());
+    }
+
+    public void setDisassembly(final @NotNull Disassembly disassembly) {
+        model.setDisassembly(disassembly);
+    }
+
+    public void clear() {
+        model.setDisassembly(null);
+    }
+
+    /**
+     * Exposes a {@link Disassembly} to the table. Cells are formatted whenever the table paints them.
+     */
+    private static final class DisassemblyTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Address", "Bytes", "Disassembly", "Comment"};
+
+        private Disassembly disassembly = null;
 
-        var symbol = decl.getSymbol();
-        if (symbol.getAddress() < 1 || decl.getSymbol().isExternal()) {
-            table.setModel(model);
-            table.updateUI();
-            return;
+        void setDisassembly(Disassembly disassembly) {
+            this.disassembly = disassembly;
+            fireTableDataChanged();
         }
 
-        var offset = symbol.getAddress();
-        var after = offset;
-        var exit = false;
-
-        var buffer = ByteBuffer.allocate(6);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        while (!exit) {
-            var i = script.getInstruction(offset);
-
-            var dis = i.op().name();
-            var cmnt = "";
-            var off = String.format("%-20x", offset);
-
-            offset += i.size;
-
-            buffer.rewind();
-            buffer.put((byte) i.op_);
-
-            switch (i.op()) {
-                case ADD, SUB, MUL, DIV, MOD, OR, ANDB, LT, GT, ORR, AND, LSL, LSR, LTE, EQ, NEQ, GTE, MOVI, ADDMOVI,
-                     SUBMOVI, MULMOVI, DIVMOVI, PLUS, NEGATE, NOT, CMPL, MOVS, MOVSS, MOVVF, MOVF, MOVVI, NOP -> {
-                    dis = i.op().name();
-                }
-                case RSR -> {
-                    if (offset > after) {
-                        exit = true;
-                    }
-                }
-                case BL -> {
-                    dis += " 0x" + Integer.toHexString(i.data);
-
-                    var sym = script.getSymbolByAddress(i.data);
-                    if (sym != null) {
-                        cmnt = sym.getName();
-                    }
-
-                    buffer.putInt(i.data);
-                }
-                case BE, PUSHV, PUSHVI, GMOVI -> {
-                    dis += " 0x" + Integer.toHexString(i.data);
-
-                    var sym = script.getSymbolByIndex(i.data);
-                    if (sym != null) {
-                        cmnt = sym.getName();
-                    }
-
-                    buffer.putInt(i.data);
-                }
-                case PUSHVV -> {
-                    dis += " 0x" + Integer.toHexString(i.data) + " #" + i.index;
-
-                    var sym = script.getSymbolByIndex(i.data);
-                    if (sym != null) {
-                        cmnt = sym.getName() + "[" + i.index + "]";
-                    }
-
-                    buffer.putInt(i.data);
-                    buffer.put((byte) i.index);
-                }
-                case PUSHI -> {
-                    dis += " " + i.data;
-                    buffer.putInt(i.data);
-                }
-                case B, BZ -> {
-                    dis += " 0x" + Integer.toHexString(i.data);
-                    after = Math.max(after, i.data);
-                    buffer.putInt(i.data);
-                }
-            }
-
-            var count = buffer.position();
-            byte[] bytes = buffer.array();
-            String[] s = new String[count];
-            for (int j = 0; j < count; j++) {
-                s[j] = String.format("%02x", bytes[j] & 0xFF);
-            }
-
-            model.addRow(new Object[]{off, String.join(" ", s), dis, cmnt});
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
         }
 
-        table.setModel(model);
-        table.updateUI();
-    }
+        @Override
+        public int getRowCount() {
+            return disassembly == null ? 0 : disassembly.getInstructionCount();
+        }
 
-    public void clear() {
-        var model = new DefaultTableModel();
-        model.setColumnIdentifiers(new String[]{"Address", "Bytes", "Disassembly", "Comment"});
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return switch (column) {
+                case 0 -> disassembly.formatAddress(row);
+                case 1 -> disassembly.formatBytes(row);
+                case 2 -> disassembly.formatInstruction(row);
+                default -> disassembly.formatComment(row);
+            };
+        }
     }
 
     private static class MonospaceCellRenderer extends DefaultTableCellRenderer {
+        private static final Font FONT = new Font("Monospaced", Font.PLAIN, 14);
+
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             var cell = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-            cell.setFont(new Font("Monospaced", Font.PLAIN, 14));
+            cell.setFont(FONT);
             return cell;
         }
     }
@@ -3,6 +3,8 @@
 package dev.gothickit.mdd.gui;
 
 import dev.gothickit.mdd.cst.*;
+import dev.gothickit.mdd.script.Symbol;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
@@ -65,4 +67,34 @@ public class GuiIcons {
         return null;
     }
 
+    public static ImageIcon getIcon(Symbol symbol) {
+        return icons.get(getIconName(symbol));
+    }
+
+    /**
+     * @return The icon name of the declaration of the given symbol, without decompiling it.
+     */
+    public static String getIconName(@NotNull Symbol symbol) {
+        var type = symbol.getType();
+        if (type == DaedalusDataType.INSTANCE) {
+            return "instance";
+        } else if (type == DaedalusDataType.PROTOTYPE) {
+            return "prototype";
+        } else if (type == DaedalusDataType.CLASS) {
+            return "class";
+        } else if (type == DaedalusDataType.FUNCTION && symbol.isConst()) {
+            if (symbol.isExternal()) {
+                return "external";
+            }
+            return "function";
+        } else if (symbol.isMember()) {
+            return "member";
+        } else if (symbol.isConst()) {
+            return "constant";
+        } else if (symbol.getName().contains(".")) {
+            return "variable";
+        }
+
+        return "globalVariable";
+    }
 }
@@ -2,26 +2,40 @@
 // SPDX-License-Identifier: MIT-Modern-Variant
 package dev.gothickit.mdd.gui;
 
+import dev.gothickit.mdd.cache.ScriptCache;
+import dev.gothickit.mdd.cache.SourceCache;
 import dev.gothickit.mdd.cst.Decl;
 import dev.gothickit.mdd.decompiler.Decompiler;
 import dev.gothickit.mdd.decompiler.DecompilerOptions;
-import dev.gothickit.mdd.output.TextBuilder;
-import dev.gothickit.zenkit.daedalus.DaedalusScript;
+import dev.gothickit.mdd.export.ExportPipeline;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.mdd.script.ScriptBackend;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.HashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GuiMainView extends JSplitPane {
     private final GuiSymbolsView symbolsView;
     private final GuiDecompilerView decompilerView;
     private final GuiDisassemblerView disassemblerView;
+    private final GuiPrefetcher prefetcher = new GuiPrefetcher();
     private Decompiler decompiler;
-    private DaedalusScript script;
+    private Script script;
+    private ScriptCache cache = null;
+    private ScriptCache.Entry cached = null;
+    private SourceCache sources = null;
+    private ScriptBackend backend = ScriptBackend.ZENKIT;
+    private String encoding = "Windows-1252";
     private Decl selected = null;
+    private Decl requested = null;
+    private SwingWorker<GuiSelection, Void> pending = null;
 
     public GuiMainView() {
         super(JSplitPane.HORIZONTAL_SPLIT);
@@ -42,31 +56,150 @@ public class GuiMainView extends JSplitPane {
     }
 
     public void loadAndShowScript(File file) throws IOException {
+        saveSources();
+
         try {
-            this.script = DaedalusScript.load(file.getPath());
+            if (cache != null) {
+                this.cached = cache.load(file.toPath(), backend, encoding);
+                this.script = cached.script();
+            } else {
+                this.cached = null;
+                this.script = backend.load(file.toPath(), encoding);
+            }
+
             this.decompiler = new Decompiler(script);
-            this.symbolsView.reset(this.decompiler.getTopLevelSymbols(), file.getName());
+            this.sources = cached != null ? cache.getSources(cached, decompiler.getOptions()) : null;
+            this.symbolsView.reset(this.decompiler, file.getName());
         } catch (Exception e) {
             throw new IOException("Script import failed", e);
         }
     }
 
+    public void setBackend(ScriptBackend backend) {
+        this.backend = backend;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Sets the cache used for scripts loaded from now on, or disables caching if null.
+     */
+    public void setCache(final @Nullable ScriptCache cache) {
+        this.cache = cache;
+    }
+
     public void unloadScript() {
+        cancelPending();
+        prefetcher.clear();
+        saveSources();
+        this.sources = null;
+        this.cached = null;
         this.script = null;
         this.decompiler = null;
+        this.selected = null;
+        this.requested = null;
         this.symbolsView.clear();
         this.decompilerView.clear();
         this.disassemblerView.clear();
     }
 
     private void onSymbolSelected(final Decl decl) {
-        if (decl == null) {
+        // Re-selecting the symbol which is already shown or being loaded, e.g. by clicking on it again in the symbol
+        // tree, does not need to decompile or render anything.
+        if (decl == null || decl == requested) {
+            return;
+        }
+
+        showSymbol(decl);
+    }
+
+    /**
+     * Decompiles, renders and disassembles the given declaration on a background thread and shows the result once it
+     * is ready. Work for a previous selection still in flight is cancelled and its result is dropped, so only the most
+     * recent selection is ever shown. Declarations which have already been prefetched are shown immediately. If loading
+     * fails, the previous selection stays shown and the declaration can be selected again to retry.
+     */
+    private void showSymbol(final @NotNull Decl decl) {
+        cancelPending();
+        prefetcher.cancel();
+        requested = decl;
+
+        var decompiler = this.decompiler;
+        var script = this.script;
+        var sources = this.sources;
+
+        var cached = prefetcher.get(decl);
+        if (cached != null) {
+            selected = decl;
+            showSelection(cached);
+            prefetcher.prefetch(script, decompiler, sources, decl);
+            return;
+        }
+
+        pending = new SwingWorker<>() {
+            @Override
+            protected GuiSelection doInBackground() {
+                return GuiSelection.load(script, decompiler, sources, decl, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                if (pending != this || isCancelled()) {
+                    return;
+                }
+
+                pending = null;
+
+                try {
+                    var selection = get();
+                    if (selection == null) {
+                        requested = selected;
+                        return;
+                    }
+
+                    selected = decl;
+                    showSelection(selection);
+                    prefetcher.put(decl, selection);
+                    prefetcher.prefetch(script, decompiler, sources, decl);
+                } catch (InterruptedException | ExecutionException e) {
+                    requested = selected;
+                    e.printStackTrace();
+                }
+            }
+        };
+
+        pending.execute();
+    }
+
+    private void showSelection(final @NotNull GuiSelection selection) {
+        decompilerView.setSource(selection.document());
+        disassemblerView.setDisassembly(selection.disassembly());
+    }
+
+    /**
+     * Writes sources rendered since the script was loaded to the cache, so that they are available the next time the
+     * script is opened.
+     */
+    private void saveSources() {
+        if (sources == null) {
             return;
         }
-        decompiler.decompileCode(decl);
-        decompilerView.setSymbol(decl, decompiler);
-        disassemblerView.setSymbol(script, decl);
-        selected = decl;
+
+        try {
+            sources.save();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+            requested = selected;
+        }
     }
 
     private void onSymbolSelected(final int id) {
@@ -75,58 +208,51 @@ public class GuiMainView extends JSplitPane {
     }
 
     public void exportScriptFiles(final @NotNull File path) throws IOException {
-        if (!path.exists()) {
-            path.mkdirs();
-        }
-
-        var symbols = decompiler.getTopLevelSymbols();
+        Files.createDirectories(path.toPath());
 
-        ProgressMonitor progressBar = new ProgressMonitor(this, "Exporting Script", "", 1, symbols.size() * 2);
-        progressBar.setNote("Decompiling Symbols ...");
-        int i = 1;
+        var pipeline = new ExportPipeline(decompiler, Runtime.getRuntime().availableProcessors());
+        var progressBar = new ProgressMonitor(this, "Exporting Script", "Decompiling Symbols ...", 0, pipeline.getFileCount());
+        var written = new AtomicInteger();
 
-        var files = new HashMap<Integer, TextBuilder>();
-        for (var decl : symbols) {
-            progressBar.setNote("Decompiling Symbols (" + decl.getName() + ") ...");
+        pipeline.setListener(stats -> SwingUtilities.invokeLater(() -> {
             if (progressBar.isCanceled()) {
+                pipeline.cancel();
                 return;
             }
 
-            var builder = files.getOrDefault(decl.getSymbol().getFileIndex(), null);
-            if (builder == null) {
-                builder = new TextBuilder();
-                files.put(decl.getSymbol().getFileIndex(), builder);
-            }
+            progressBar.setNote("Saved " + stats.fileIndex() + ".d");
+            progressBar.setProgress(written.incrementAndGet());
+        }));
 
+        // The pipeline runs on its own threads, the UI stays responsive while exporting.
+        var thread = new Thread(() -> {
             try {
-                decompiler.decompileCode(decl);
-                builder.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline().newline();
+                pipeline.run(path.toPath());
+            } catch (CancellationException | InterruptedException ignored) {
+                // The export was cancelled by the user.
             } catch (Exception e) {
                 e.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, e.getClass().getSimpleName() + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            } finally {
+                SwingUtilities.invokeLater(progressBar::close);
             }
+        }, "mdd-export");
 
-            progressBar.setProgress(i + 1);
-            i += 1;
-        }
-
-        progressBar.setNote("Saving Files ...");
-
-        for (var entry : files.entrySet()) {
-            if (progressBar.isCanceled()) {
-                return;
-            }
-            Files.writeString(path.toPath().resolve(entry.getKey().toString() + ".d"), entry.getValue().toString());
-            progressBar.setNote("Saving Files (" + entry.getKey() + ") ...");
-            progressBar.setProgress(i + 1);
-            i += 1;
-        }
-
-        progressBar.setNote("Done.");
-        progressBar.close();
+        thread.setDaemon(true);
+        thread.start();
     }
 
     public void updateDecompilerOptions(DecompilerOptions decompilerOptions) {
+        var refresh = requested;
+        cancelPending();
+        prefetcher.clear();
         decompiler.setOptions(decompilerOptions);
-        this.onSymbolSelected(selected); // Refresh the decompiled view
+
+        saveSources();
+        sources = cached != null && cache != null ? cache.getSources(cached, decompilerOptions) : null;
+
+        if (refresh != null) {
+            this.showSymbol(refresh); // Refresh the decompiled view
+        }
     }
 }
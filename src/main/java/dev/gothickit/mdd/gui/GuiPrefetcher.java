@@ -0,0 +1,168 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.gui;
+
+import dev.gothickit.mdd.cache.SourceCache;
+import dev.gothickit.mdd.cst.AccessExpr;
+import dev.gothickit.mdd.cst.CallExpr;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.FunctionReferenceExpr;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.Script;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speculatively loads the declarations a user is likely to open next while they are reading the current one: the
+ * neighbours of the shown declaration in the symbol list and everything referenced by its code. All work runs on a
+ * single low-priority thread and the results are kept in a small LRU cache, which is consulted before decompiling a
+ * selected symbol.
+ */
+final class GuiPrefetcher {
+    private static final int MAX_CACHED = 64;
+    private static final int MAX_TARGETS = 24;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Decl, GuiSelection> cache = new LinkedHashMap<>(MAX_CACHED, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Decl, GuiSelection> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private volatile int generation = 0;
+
+    GuiPrefetcher() {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            var thread = new Thread(r, "mdd-prefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public @Nullable GuiSelection get(final @NotNull Decl decl) {
+        synchronized (cache) {
+            return cache.get(decl);
+        }
+    }
+
+    public void put(final @NotNull Decl decl, final @NotNull GuiSelection selection) {
+        synchronized (cache) {
+            cache.put(decl, selection);
+        }
+    }
+
+    /**
+     * Drops all queued work. Work which is already running is finished, but its result is discarded.
+     */
+    public void cancel() {
+        synchronized (cache) {
+            generation += 1;
+        }
+
+        executor.getQueue().clear();
+    }
+
+    /**
+     * Drops all queued work and all cached results. Must be called whenever the decompiler's output changes.
+     */
+    public void clear() {
+        synchronized (cache) {
+            generation += 1;
+            cache.clear();
+        }
+
+        executor.getQueue().clear();
+    }
+
+    /**
+     * Queues the declarations likely to be opened after the given one for loading.
+     */
+    public void prefetch(
+            final @NotNull Script script,
+            final @NotNull Decompiler decompiler,
+            final @Nullable SourceCache sources,
+            final @NotNull Decl decl
+    ) {
+        var expected = generation;
+
+        executor.execute(() -> {
+            if (generation != expected) {
+                return;
+            }
+
+            for (var target : getTargets(decompiler, decl)) {
+                executor.execute(() -> load(expected, script, decompiler, sources, target));
+            }
+        });
+    }
+
+    private void load(int expected, Script script, Decompiler decompiler, SourceCache sources, Decl decl) {
+        if (generation != expected || get(decl) != null) {
+            return;
+        }
+
+        try {
+            var selection = GuiSelection.load(script, decompiler, sources, decl, () -> generation != expected);
+            if (selection == null) {
+                return;
+            }
+
+            synchronized (cache) {
+                if (generation == expected) {
+                    cache.put(decl, selection);
+                }
+            }
+        } catch (Exception ignored) {
+            // The error is reported if the user actually selects the declaration.
+        }
+    }
+
+    private static @NotNull Iterable<Decl> getTargets(final @NotNull Decompiler decompiler, final @NotNull Decl decl) {
+        var targets = new LinkedHashSet<Decl>();
+
+        // The neighbours come first, since stepping through the symbol list is just as common as following references
+        // and there are at most two of them.
+        var indices = decompiler.getTopLevelIndices();
+        var position = Arrays.binarySearch(indices, decl.getSymbol().getIndex());
+        if (position >= 0) {
+            if (position + 1 < indices.length) {
+                targets.add(decompiler.decompileDecl(indices[position + 1]));
+            }
+
+            if (position > 0) {
+                targets.add(decompiler.decompileDecl(indices[position - 1]));
+            }
+        }
+
+        var body = decompiler.decompileCode(decl);
+        if (body != null) {
+            body.visit(code -> {
+                if (code instanceof CallExpr call) {
+                    targets.add(call.getTarget());
+                } else if (code instanceof AccessExpr access) {
+                    targets.add(access.getTarget());
+
+                    if (access.getScope() != null) {
+                        targets.add(access.getScope());
+                    }
+                } else if (code instanceof FunctionReferenceExpr reference) {
+                    targets.add(reference.getFunction());
+                }
+            });
+        }
+
+        targets.remove(decl);
+        targets.removeIf(target -> target == null || target.getSymbol() == null);
+        return targets.stream().limit(MAX_TARGETS).toList();
+    }
+}
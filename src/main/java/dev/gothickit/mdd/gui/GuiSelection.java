@@ -0,0 +1,62 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.gui;
+
+import dev.gothickit.mdd.cache.SourceCache;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.disassembler.Disassembly;
+import dev.gothickit.mdd.script.Script;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.text.StyledDocument;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything shown for a selected declaration: its rendered source and its disassembly.
+ */
+record GuiSelection(StyledDocument document, Disassembly disassembly) {
+    /**
+     * Decompiles, renders and disassembles the given declaration. Can be called from any thread. If a source cache is
+     * given, the source is taken from it instead of decompiling the declaration, or added to it otherwise.
+     *
+     * @return The selection or null, if loading was cancelled in between.
+     */
+    static @Nullable GuiSelection load(
+            final @NotNull Script script,
+            final @NotNull Decompiler decompiler,
+            final @Nullable SourceCache sources,
+            final @NotNull Decl decl,
+            final @NotNull BooleanSupplier cancelled
+    ) {
+        var index = decl.getSymbol().getIndex();
+        var recording = sources != null ? sources.get(index) : null;
+
+        // Decompilation itself cannot be interrupted, so stale work is only skipped between the individual steps.
+        if (recording == null) {
+            decompiler.decompileCode(decl);
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+        }
+
+        StyledDocument document;
+        if (sources == null) {
+            document = GuiDecompilerView.render(decl, decompiler);
+        } else {
+            if (recording == null) {
+                recording = GuiDecompilerView.record(decl);
+                sources.put(index, recording);
+            }
+
+            document = GuiDecompilerView.replay(decl, decompiler, recording);
+        }
+
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+
+        return new GuiSelection(document, GuiDisassemblerView.disassemble(script, decl));
+    }
+}
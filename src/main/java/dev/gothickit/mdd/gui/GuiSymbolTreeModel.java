@@ -0,0 +1,152 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.gui;
+
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.Scope;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.Symbol;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.Arrays;
+
+/**
+ * A tree model over the top-level symbols matching the current filter, which are stored as an array of symbol
+ * indices. The top-level nodes are the {@link Symbol}s of the script itself and the members of classes and functions
+ * are only decompiled when the tree asks for them, i.e. once their parent is expanded and they become visible.
+ * Changing the filter thus does not allocate anything per symbol.
+ */
+final class GuiSymbolTreeModel implements TreeModel {
+    private static final int[] EMPTY = new int[0];
+
+    private final EventListenerList listeners = new EventListenerList();
+    private Object root = "Empty";
+    private Decompiler decompiler = null;
+    private int[] visible = EMPTY;
+    private boolean sorted = true;
+
+    /**
+     * Replaces the shown symbols.
+     *
+     * @param visible The indices of the top-level symbols to show, in the order they are shown in.
+     */
+    public void reset(final @NotNull String name, final @NotNull Decompiler decompiler, final int @NotNull [] visible) {
+        this.root = name;
+        this.decompiler = decompiler;
+        this.visible = visible;
+        this.sorted = isSorted(visible);
+        fireStructureChanged();
+    }
+
+    public void clear() {
+        this.root = "Empty";
+        this.decompiler = null;
+        this.visible = EMPTY;
+        this.sorted = true;
+        fireStructureChanged();
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (parent == root) {
+            return decompiler.getSymbolTable().getSymbol(visible[index]);
+        }
+
+        if (parent instanceof Symbol symbol && decompiler.decompileDecl(symbol.getIndex()) instanceof Scope scope) {
+            return scope.getMembers().get(index);
+        }
+
+        return null;
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (parent == root) {
+            return visible.length;
+        }
+
+        if (parent instanceof Symbol symbol && decompiler.hasMembers(symbol.getIndex())) {
+            var scopes = decompiler.getSymbolTable().getScopes();
+            return scopes.getEnd(symbol.getIndex()) - scopes.getLocalsStart(symbol.getIndex());
+        }
+
+        return 0;
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        if (node == root) {
+            return false;
+        }
+
+        return !(node instanceof Symbol symbol) || !decompiler.hasMembers(symbol.getIndex());
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == root && child instanceof Symbol symbol) {
+            if (sorted) {
+                var index = Arrays.binarySearch(visible, symbol.getIndex());
+                return index < 0 ? -1 : index;
+            }
+
+            // Search results are ranked, but there are only few of them.
+            for (var i = 0; i < visible.length; ++i) {
+                if (visible[i] == symbol.getIndex()) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        if (parent instanceof Symbol symbol && child instanceof Decl decl) {
+            var index = decl.getSymbol().getIndex() - decompiler.getSymbolTable().getScopes().getLocalsStart(symbol.getIndex());
+            return index < 0 || index >= getChildCount(parent) ? -1 : index;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // The tree is not editable
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+
+    private static boolean isSorted(final int @NotNull [] indices) {
+        for (var i = 1; i < indices.length; ++i) {
+            if (indices[i - 1] > indices[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void fireStructureChanged() {
+        var event = new TreeModelEvent(this, new Object[]{root});
+        for (var listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+}
@@ -5,31 +5,52 @@ package dev.gothickit.mdd.gui;
 import com.formdev.flatlaf.icons.FlatAscendingSortIcon;
 import com.formdev.flatlaf.icons.FlatFileViewFileIcon;
 import com.formdev.flatlaf.icons.FlatSearchIcon;
-import dev.gothickit.mdd.cst.*;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.script.SearchIndex;
+import dev.gothickit.mdd.script.Symbol;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 public class GuiSymbolsView extends JPanel {
-    private static final DefaultMutableTreeNode ROOT = new DefaultMutableTreeNode("Empty", true);
+    private static final int SEARCH_DELAY = 150;
+    private static final int MAX_SEARCH_RESULTS = 1000;
+
     private final JTextField searchField;
     private final JComboBox<String> filterField;
     private final JTree symbolTree;
+    private final GuiSymbolTreeModel symbolModel = new GuiSymbolTreeModel();
     private final boolean hideGeneratedSymbols = true;
-    private List<@NotNull Decl> symbols = List.of();
+    private int[] symbols = new int[0];
+    private Decompiler decompiler;
     private String scriptName = "Empty";
-
-    public GuiSymbolsView(@NotNull Consumer<@NotNull Decl> onClick) {
+    private int generation = 0;
+
+    // Searches run one after another on a dedicated thread. The index and the last result are only ever accessed from
+    // that thread.
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "mdd-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SearchIndex searchIndex = null;
+    private SearchIndex.Result lastResult = null;
+
+    public GuiSymbolsView(@NotNull Consumer<@NotNull Integer> onClick) {
         super();
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -42,15 +63,19 @@ public class GuiSymbolsView extends JPanel {
         searchField.setMaximumSize(new Dimension(Integer.MAX_VALUE, 20));
         searchField.setMinimumSize(new Dimension(0, 20));
 
+        // Only search once the user stopped typing for a moment.
+        var searchTimer = new Timer(SEARCH_DELAY, e -> this.filter(searchField.getText()));
+        searchTimer.setRepeats(false);
+
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                GuiSymbolsView.this.filter(searchField.getText());
+                searchTimer.restart();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                GuiSymbolsView.this.filter(searchField.getText());
+                searchTimer.restart();
             }
 
             @Override
@@ -81,26 +106,28 @@ public class GuiSymbolsView extends JPanel {
         add(filterLabel);
         add(filterField);
 
-        symbolTree = new JTree(ROOT);
+        symbolTree = new JTree(symbolModel);
         symbolTree.setEditable(false);
         symbolTree.setMaximumSize(new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE));
         symbolTree.setMinimumSize(new Dimension(0, 0));
         symbolTree.setShowsRootHandles(true);
         symbolTree.setCellRenderer(new CstTreeCellRenderer());
 
+        // With a fixed row height, the tree only queries the model for the rows that are visible.
+        if (symbolTree.getRowHeight() <= 0) {
+            symbolTree.setRowHeight(20);
+        }
+        symbolTree.setLargeModel(true);
+
         symbolTree.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                var node = (DefaultMutableTreeNode) symbolTree.getLastSelectedPathComponent();
-                if (node == null) {
-                    return;
+                var node = symbolTree.getLastSelectedPathComponent();
+                if (node instanceof Symbol symbol) {
+                    onClick.accept(symbol.getIndex());
+                } else if (node instanceof Decl decl) {
+                    onClick.accept(decl.getSymbol().getIndex());
                 }
-
-                if (!(node.getUserObject() instanceof Decl decl)) {
-                    return;
-                }
-
-                onClick.accept(decl);
             }
         });
 
@@ -114,66 +141,93 @@ public class GuiSymbolsView extends JPanel {
         add(scrollPane);
     }
 
-    public void reset(final @NotNull List<@NotNull Decl> symbols, String scriptName) {
-        this.symbols = symbols;
+    public void reset(final @NotNull Decompiler decompiler, String scriptName) {
+        this.decompiler = decompiler;
+        this.symbols = decompiler.getTopLevelIndices();
+
+        var table = decompiler.getSymbolTable();
+        var symbols = this.symbols;
+        searchExecutor.execute(() -> {
+            searchIndex = new SearchIndex(table, symbols);
+            lastResult = null;
+        });
         this.scriptName = scriptName;
 
         this.searchField.setText("");
         this.filter("");
     }
 
-    private boolean isSymbolShown(@NotNull Decl decl) {
-        String filter = (String) filterField.getSelectedItem();
+    private static boolean isSymbolShown(@NotNull Symbol symbol, @NotNull String filter) {
         if (filter.equals("All")) {
             return true;
         }
 
-        return (decl instanceof InstanceDecl && filter.equals("Instances")) ||
-                (decl instanceof ClassDecl && filter.equals("Classes")) ||
-                (decl instanceof FunctionDecl && filter.equals("Functions")) ||
-                (decl instanceof PrototypeDecl && filter.equals("Prototypes")) ||
-                (decl instanceof VariableDecl v0 && !(decl instanceof InstanceDecl) && v0.getValue() == null && filter.equals("Variables")) ||
-                (decl instanceof VariableDecl v1 && !(decl instanceof InstanceDecl) && v1.getValue() != null && filter.equals("Constants"));
+        var type = symbol.getType();
+        var function = type == DaedalusDataType.FUNCTION && symbol.isConst();
+        var variable = !function && type != DaedalusDataType.INSTANCE && type != DaedalusDataType.CLASS &&
+                type != DaedalusDataType.PROTOTYPE;
+
+        return (type == DaedalusDataType.INSTANCE && filter.equals("Instances")) ||
+                (type == DaedalusDataType.CLASS && filter.equals("Classes")) ||
+                (function && filter.equals("Functions")) ||
+                (type == DaedalusDataType.PROTOTYPE && filter.equals("Prototypes")) ||
+                (variable && !symbol.isConst() && filter.equals("Variables")) ||
+                (variable && symbol.isConst() && filter.equals("Constants"));
     }
 
+    /**
+     * Shows the symbols matching the given search text and the selected type filter. The search runs in the
+     * background and its result is only shown if no other search was started in the meantime.
+     */
     private void filter(@NotNull String text) {
-        ROOT.removeAllChildren();
-        ROOT.setUserObject(this.scriptName);
+        if (decompiler == null) {
+            return;
+        }
 
-        text = text.toUpperCase();
-        for (Decl decl : this.symbols) {
-            if (!isSymbolShown(decl)) {
-                continue;
-            }
+        var decompiler = this.decompiler;
+        var table = decompiler.getSymbolTable();
+        var symbols = this.symbols;
+        var name = this.scriptName;
+        var filter = (String) filterField.getSelectedItem();
+        var expected = ++generation;
 
-            // Hide generated symbols if configured.
-            if (hideGeneratedSymbols && decl.getSymbol().isGenerated()) {
-                continue;
-            }
+        IntPredicate shown = index -> isSymbolShown(table.getSymbol(index), filter) &&
+                !(hideGeneratedSymbols && table.isGenerated(index));
 
-            // Only show objects matching the filter
-            if (!decl.getName().contains(text)) {
-                continue;
-            }
+        searchExecutor.execute(() -> {
+            int[] matches;
+            var label = name;
 
-            var node = new DefaultMutableTreeNode(decl);
-            ROOT.add(node);
+            if (text.isEmpty()) {
+                matches = Arrays.stream(symbols).filter(shown).toArray();
+            } else {
+                lastResult = searchIndex.search(text, shown, MAX_SEARCH_RESULTS, lastResult);
+                matches = lastResult.getSymbols();
 
-            // If the symbol is a scope, also add its children
-            if (decl instanceof Scope scope) {
-                for (var member : scope.getMembers()) {
-                    node.add(new DefaultMutableTreeNode(member));
+                if (lastResult.getMatchCount() > matches.length) {
+                    label = name + " (" + matches.length + " of " + lastResult.getMatchCount() + " matches)";
                 }
             }
-        }
 
-        this.symbolTree.updateUI();
+            var root = label;
+            SwingUtilities.invokeLater(() -> {
+                if (generation == expected) {
+                    symbolModel.reset(root, decompiler, matches);
+                }
+            });
+        });
     }
 
     public void clear() {
-        ROOT.removeAllChildren();
-        ROOT.setUserObject("Empty");
-        symbols = List.of();
+        generation += 1;
+        symbolModel.clear();
+        symbols = new int[0];
+        decompiler = null;
+
+        searchExecutor.execute(() -> {
+            searchIndex = null;
+            lastResult = null;
+        });
     }
 
     private static class CstTreeCellRenderer extends DefaultTreeCellRenderer {
@@ -181,10 +235,12 @@ public class GuiSymbolsView extends JPanel {
 
         public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
                                                       boolean leaf, int row, boolean hasFocus) {
-            Object userObject = ((DefaultMutableTreeNode) value).getUserObject();
-            if (userObject instanceof Decl decl) {
+            if (value instanceof Decl decl) {
                 label.setIcon(GuiIcons.getIcon(decl));
                 label.setText(decl.getName());
+            } else if (value instanceof Symbol symbol) {
+                label.setIcon(GuiIcons.getIcon(symbol));
+                label.setText(symbol.getName());
             } else {
                 label.setIcon(null);
                 label.setText(value.toString());
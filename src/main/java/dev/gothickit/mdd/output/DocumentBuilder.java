@@ -0,0 +1,217 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.output;
+
+import dev.gothickit.mdd.cst.BuiltinDecl;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.Syntax;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static javax.swing.text.DefaultStyledDocument.ElementSpec;
+
+/**
+ * Builds a {@link StyledDocument} directly from source builder calls, producing the same highlighting as the
+ * {@link HtmlBuilder} without having to generate and parse HTML. The document is only assembled in {@link #build()},
+ * using a single bulk insertion. It is not attached to any component until then, so it can be built on any thread.
+ * <p>
+ * References carry the index of the referenced symbol in the {@link #REFERENCE} attribute.
+ */
+public class DocumentBuilder implements SourceBuilder {
+    public static final Object REFERENCE = new Object() {
+        @Override
+        public String toString() {
+            return "reference";
+        }
+    };
+
+    private static final int INDENT_WIDTH = 20;
+    private static final AttributeSet ROOT = createRootStyle();
+    private static final AttributeSet PLAIN = new SimpleAttributeSet();
+    private static final AttributeSet KEYWORD = createStyle(new Color(0xeb4817));
+    private static final AttributeSet NUMBER = createStyle(new Color(0x44abff));
+    private static final AttributeSet STRING = createStyle(new Color(0x73d93f));
+    private static final AttributeSet COMMENT = createStyle(new Color(0x888888));
+    private static final AttributeSet LINK = createStyle(Color.WHITE);
+    private static final AttributeSet[] PARAGRAPHS = new AttributeSet[32];
+    private static final char[] NEWLINE = {'\n'};
+
+    static {
+        for (var i = 0; i < PARAGRAPHS.length; ++i) {
+            PARAGRAPHS[i] = createParagraphStyle(i);
+        }
+    }
+
+    private final List<ElementSpec> specs = new ArrayList<>();
+    private int indent = 0;
+
+    public DocumentBuilder() {
+        specs.add(new ElementSpec(ROOT, ElementSpec.StartTagType));
+        specs.add(new ElementSpec(getParagraphStyle(0), ElementSpec.StartTagType));
+    }
+
+    /**
+     * @return A new document containing everything appended to this builder so far.
+     */
+    public @NotNull StyledDocument build() {
+        var document = new SourceDocument();
+        var data = new ArrayList<>(specs);
+        data.add(new ElementSpec(PLAIN, ElementSpec.ContentType, NEWLINE, 0, 1));
+        data.add(new ElementSpec(null, ElementSpec.EndTagType));
+        document.create(data.toArray(ElementSpec[]::new));
+        return document;
+    }
+
+    @Override
+    public String toString() {
+        var text = new StringBuilder();
+        for (var spec : specs) {
+            if (spec.getType() == ElementSpec.ContentType) {
+                text.append(spec.getArray(), spec.getOffset(), spec.getLength());
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public SourceBuilder comment(String comment) {
+        return append(COMMENT, "/* " + comment + " */");
+    }
+
+    @Override
+    public SourceBuilder commentMultiline(String... comment) {
+        append(COMMENT, "/*");
+
+        for (String s : comment) {
+            newline();
+            append(COMMENT, " * " + s);
+        }
+
+        newline();
+        return append(COMMENT, "*/");
+    }
+
+    @Override
+    public DocumentBuilder syntax(Syntax keyword) {
+        keyword.getSource(this);
+        return this;
+    }
+
+    @Override
+    public DocumentBuilder number(int value) {
+        return append(NUMBER, String.valueOf(value));
+    }
+
+    @Override
+    public DocumentBuilder number(float value) {
+        return append(NUMBER, String.valueOf(value));
+    }
+
+    @Override
+    public DocumentBuilder string(String value) {
+        return append(STRING, "\"" + value + "\"");
+    }
+
+    @Override
+    public DocumentBuilder keyword(String keyword) {
+        return append(KEYWORD, keyword);
+    }
+
+    @Override
+    public DocumentBuilder clazz(String clazz) {
+        return append(PLAIN, clazz);
+    }
+
+    @Override
+    public DocumentBuilder type(Decl reference) {
+        if (reference instanceof BuiltinDecl) {
+            this.keyword(reference.getName()).space();
+        } else {
+            this.reference(reference.getName(), reference.getSymbol().getIndex());
+        }
+
+        return this;
+    }
+
+    @Override
+    public DocumentBuilder reference(String reference, int ref) {
+        var style = new SimpleAttributeSet(LINK);
+        style.addAttribute(REFERENCE, ref);
+        return append(style, reference);
+    }
+
+    @Override
+    public DocumentBuilder text(String text) {
+        return append(PLAIN, text);
+    }
+
+    @Override
+    public DocumentBuilder newline() {
+        specs.add(new ElementSpec(PLAIN, ElementSpec.ContentType, NEWLINE, 0, 1));
+        specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+        specs.add(new ElementSpec(getParagraphStyle(indent), ElementSpec.StartTagType));
+        return this;
+    }
+
+    @Override
+    public DocumentBuilder space() {
+        return append(PLAIN, " ");
+    }
+
+    @Override
+    public DocumentBuilder indented(Consumer<SourceBuilder> build) {
+        indent += 1;
+        build.accept(this);
+        indent -= 1;
+        return this;
+    }
+
+    private DocumentBuilder append(final @NotNull AttributeSet style, final @NotNull String value) {
+        if (!value.isEmpty()) {
+            specs.add(new ElementSpec(style, ElementSpec.ContentType, value.toCharArray(), 0, value.length()));
+        }
+
+        return this;
+    }
+
+    private static AttributeSet getParagraphStyle(int indent) {
+        return indent < PARAGRAPHS.length ? PARAGRAPHS[indent] : createParagraphStyle(indent);
+    }
+
+    private static AttributeSet createRootStyle() {
+        var style = new SimpleAttributeSet();
+        StyleConstants.setFontFamily(style, Font.MONOSPACED);
+        return style;
+    }
+
+    private static AttributeSet createParagraphStyle(int indent) {
+        var style = new SimpleAttributeSet();
+        StyleConstants.setLeftIndent(style, indent * INDENT_WIDTH);
+        return style;
+    }
+
+    private static AttributeSet createStyle(final @NotNull Color color) {
+        var style = new SimpleAttributeSet();
+        StyleConstants.setForeground(style, color);
+        return style;
+    }
+
+    /**
+     * Exposes the bulk {@link DefaultStyledDocument#create(ElementSpec[])} operation.
+     */
+    private static final class SourceDocument extends DefaultStyledDocument {
+        @Override
+        protected void create(ElementSpec[] data) {
+            super.create(data);
+        }
+    }
+}
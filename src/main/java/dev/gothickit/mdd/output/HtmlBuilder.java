@@ -9,6 +9,14 @@ import dev.gothickit.mdd.cst.Syntax;
 import java.util.function.Consumer;
 
 public class HtmlBuilder implements SourceBuilder {
+    private static final String[] NEWLINES = new String[32];
+
+    static {
+        for (var i = 0; i < NEWLINES.length; ++i) {
+            NEWLINES[i] = newline(i);
+        }
+    }
+
     private final StringBuilder output = new StringBuilder();
     private int indent = 0;
 
@@ -32,7 +40,7 @@ public class HtmlBuilder implements SourceBuilder {
 
     @Override
     public SourceBuilder comment(String comment) {
-        output.append("<span class=\"cmnt\">").append("/* ").append(comment).append(" */").append("</span>");
+        output.append("<span class=\"cmnt\">").append("/* ").append(escape(comment)).append(" */").append("</span>");
         return this;
     }
 
@@ -42,7 +50,7 @@ public class HtmlBuilder implements SourceBuilder {
 
         for (String s : comment) {
             newline();
-            output.append("<span class=\"cmnt\">").append(" * ").append(s).append("</span>");
+            output.append("<span class=\"cmnt\">").append(" * ").append(escape(s)).append("</span>");
         }
 
         newline();
@@ -71,7 +79,7 @@ public class HtmlBuilder implements SourceBuilder {
 
     @Override
     public HtmlBuilder string(String value) {
-        output.append("<span class=\"str\">\"").append(value).append("\"</span>");
+        output.append("<span class=\"str\">\"").append(escape(value)).append("\"</span>");
         return this;
     }
 
@@ -107,16 +115,31 @@ public class HtmlBuilder implements SourceBuilder {
 
     @Override
     public HtmlBuilder text(String text) {
-        output.append(text.replace("<", "&lt;").replace(">", "&gt;"));
+        output.append(escape(text));
         return this;
     }
 
+    /**
+     * Escapes the given plain text for use in HTML. Runs of spaces are kept, since HTML would collapse them.
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\u00a0", "&nbsp;")
+                .replace("  ", " &nbsp;");
+    }
+
     @Override
     public HtmlBuilder newline() {
-        output.append("</div>\n<div style=\"padding-left:").append(indent * 20).append("px\">");
+        output.append(indent < NEWLINES.length ? NEWLINES[indent] : newline(indent));
         return this;
     }
 
+    private static String newline(int indent) {
+        return "</div>\n<div style=\"padding-left:" + (indent * 20) + "px\">";
+    }
+
     @Override
     public HtmlBuilder space() {
         output.append(" ");
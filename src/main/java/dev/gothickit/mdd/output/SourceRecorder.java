@@ -0,0 +1,246 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.output;
+
+import dev.gothickit.mdd.cst.BuiltinDecl;
+import dev.gothickit.mdd.cst.BuiltinType;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.Syntax;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Records source builder calls into a compact binary form, which can later be replayed into any other
+ * {@link SourceBuilder} without having the syntax tree the source was built from. Replaying produces exactly the same
+ * output as building the source directly.
+ * <p>
+ * References to non-builtin types are recorded as plain references, which all builders render the same way.
+ */
+public class SourceRecorder implements SourceBuilder {
+    private static final byte END = 0;
+    private static final byte COMMENT = 1;
+    private static final byte COMMENT_MULTILINE = 2;
+    private static final byte INT = 3;
+    private static final byte FLOAT = 4;
+    private static final byte STRING = 5;
+    private static final byte KEYWORD = 6;
+    private static final byte CLASS = 7;
+    private static final byte REFERENCE = 8;
+    private static final byte TEXT = 9;
+    private static final byte NEWLINE = 10;
+    private static final byte SPACE = 11;
+    private static final byte INDENTED = 12;
+    private static final byte BUILTIN_TYPE = 13;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    /**
+     * Replays a recording created by {@link #toByteArray()} into the given builder.
+     */
+    public static void replay(final byte @NotNull [] recording, final @NotNull SourceBuilder builder) {
+        replay(recording, builder, IntUnaryOperator.identity());
+    }
+
+    /**
+     * Replays a recording created by {@link #toByteArray()} into the given builder, passing the symbol index of every
+     * reference through the given mapping first. This allows replaying a recording made for another version of the
+     * same script, in which symbols may have different indices.
+     */
+    public static void replay(
+            final byte @NotNull [] recording,
+            final @NotNull SourceBuilder builder,
+            final @NotNull IntUnaryOperator references
+    ) {
+        try {
+            replay(new DataInputStream(new ByteArrayInputStream(recording)), builder, references);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void replay(
+            final @NotNull DataInputStream in,
+            final @NotNull SourceBuilder builder,
+            final @NotNull IntUnaryOperator references
+    ) throws IOException {
+        for (var tag = in.readByte(); tag != END; tag = in.readByte()) {
+            switch (tag) {
+                case COMMENT -> builder.comment(readString(in));
+                case COMMENT_MULTILINE -> {
+                    var lines = new String[in.readInt()];
+                    for (var i = 0; i < lines.length; ++i) {
+                        lines[i] = readString(in);
+                    }
+                    builder.commentMultiline(lines);
+                }
+                case INT -> builder.number(in.readInt());
+                case FLOAT -> builder.number(in.readFloat());
+                case STRING -> builder.string(readString(in));
+                case KEYWORD -> builder.keyword(readString(in));
+                case CLASS -> builder.clazz(readString(in));
+                case REFERENCE -> builder.reference(readString(in), references.applyAsInt(in.readInt()));
+                case BUILTIN_TYPE -> builder.type(BuiltinDecl.of(BuiltinType.values()[in.readByte()]));
+                case TEXT -> builder.text(readString(in));
+                case NEWLINE -> builder.newline();
+                case SPACE -> builder.space();
+                case INDENTED -> {
+                    // The indented block ends with its own END tag.
+                    var failure = new IOException[1];
+                    builder.indented(b -> {
+                        try {
+                            replay(in, b, references);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    });
+
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                }
+                default -> throw new IOException("Invalid recording tag: " + tag);
+            }
+        }
+    }
+
+    private static @NotNull String readString(final @NotNull DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Everything recorded so far.
+     */
+    public byte @NotNull [] toByteArray() {
+        // The extra zero byte is the END tag.
+        return Arrays.copyOf(bytes.toByteArray(), bytes.size() + 1);
+    }
+
+    @Override
+    public String toString() {
+        var text = new TextBuilder();
+        replay(toByteArray(), text);
+        return text.toString();
+    }
+
+    @Override
+    public SourceRecorder comment(String comment) {
+        return tag(COMMENT).utf(comment);
+    }
+
+    @Override
+    public SourceRecorder commentMultiline(String... comment) {
+        tag(COMMENT_MULTILINE).write(() -> out.writeInt(comment.length));
+        for (var line : comment) {
+            utf(line);
+        }
+        return this;
+    }
+
+    @Override
+    public SourceRecorder syntax(Syntax keyword) {
+        keyword.getSource(this);
+        return this;
+    }
+
+    @Override
+    public SourceRecorder number(int value) {
+        return tag(INT).write(() -> out.writeInt(value));
+    }
+
+    @Override
+    public SourceRecorder number(float value) {
+        return tag(FLOAT).write(() -> out.writeFloat(value));
+    }
+
+    @Override
+    public SourceRecorder string(String value) {
+        return tag(STRING).utf(value);
+    }
+
+    @Override
+    public SourceRecorder keyword(String keyword) {
+        return tag(KEYWORD).utf(keyword);
+    }
+
+    @Override
+    public SourceRecorder clazz(String clazz) {
+        return tag(CLASS).utf(clazz);
+    }
+
+    @Override
+    public SourceRecorder type(Decl reference) {
+        if (reference instanceof BuiltinDecl builtin) {
+            tag(BUILTIN_TYPE).bytes.write(builtin.getType().ordinal());
+        } else {
+            this.reference(reference.getName(), reference.getSymbol().getIndex());
+        }
+
+        return this;
+    }
+
+    @Override
+    public SourceRecorder reference(String reference, int ref) {
+        return tag(REFERENCE).utf(reference).write(() -> out.writeInt(ref));
+    }
+
+    @Override
+    public SourceRecorder text(String text) {
+        return tag(TEXT).utf(text);
+    }
+
+    @Override
+    public SourceRecorder newline() {
+        return tag(NEWLINE);
+    }
+
+    @Override
+    public SourceRecorder space() {
+        return tag(SPACE);
+    }
+
+    @Override
+    public SourceRecorder indented(Consumer<SourceBuilder> build) {
+        tag(INDENTED);
+        build.accept(this);
+        return tag(END);
+    }
+
+    private SourceRecorder tag(byte tag) {
+        bytes.write(tag);
+        return this;
+    }
+
+    private SourceRecorder utf(final @NotNull String value) {
+        // Not using writeUTF(), since it is limited to 64 KiB.
+        var data = value.getBytes(StandardCharsets.UTF_8);
+        return write(() -> {
+            out.writeInt(data.length);
+            out.write(data);
+        });
+    }
+
+    private SourceRecorder write(final @NotNull Write write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+}
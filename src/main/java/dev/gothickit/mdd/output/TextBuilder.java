@@ -5,11 +5,33 @@ package dev.gothickit.mdd.output;
 import dev.gothickit.mdd.cst.Decl;
 import dev.gothickit.mdd.cst.Syntax;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.function.Consumer;
 
 public class TextBuilder implements SourceBuilder {
-    private final StringBuilder builder = new StringBuilder();
-    private String indent = "";
+    private static final String[] NEWLINES = new String[32];
+
+    static {
+        for (var i = 0; i < NEWLINES.length; ++i) {
+            NEWLINES[i] = "\t".repeat(i) + System.lineSeparator();
+        }
+    }
+
+    private final Appendable builder;
+    private int depth = 0;
+
+    public TextBuilder() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Creates a builder which appends all output to the given target. I/O errors of the target are rethrown as
+     * {@link UncheckedIOException}s.
+     */
+    protected TextBuilder(final Appendable builder) {
+        this.builder = builder;
+    }
 
     @Override
     public String toString() {
@@ -18,21 +40,21 @@ public class TextBuilder implements SourceBuilder {
 
     @Override
     public SourceBuilder comment(String comment) {
-        builder.append("/* ").append(comment).append(" */");
+        append("/* ").append(comment).append(" */");
         return this;
     }
 
     @Override
     public SourceBuilder commentMultiline(String... comment) {
-        builder.append("/*");
+        append("/*");
 
         for (String s : comment) {
             newline();
-            builder.append("&emsp;*&emsp;").append(s);
+            append(" * ").append(s);
         }
 
         newline();
-        builder.append("&emsp;*/");
+        append("*/");
 
         return this;
     }
@@ -45,69 +67,87 @@ public class TextBuilder implements SourceBuilder {
 
     @Override
     public TextBuilder number(int value) {
-        builder.append(value);
+        append(String.valueOf(value));
         return this;
     }
 
     @Override
     public TextBuilder number(float value) {
-        builder.append(value);
+        append(String.valueOf(value));
         return this;
     }
 
     @Override
     public TextBuilder string(String value) {
-        builder.append('"').append(value).append('"');
+        append("\"").append(value).append("\"");
         return this;
     }
 
     @Override
     public TextBuilder keyword(String keyword) {
-        builder.append(keyword);
+        append(keyword);
         return this;
     }
 
     @Override
     public TextBuilder clazz(String clazz) {
-        builder.append(clazz);
+        append(clazz);
         return this;
     }
 
     @Override
     public TextBuilder type(Decl reference) {
-        builder.append(reference.getName());
+        append(reference.getName());
         return this;
     }
 
     @Override
     public TextBuilder reference(String reference, int ref) {
-        builder.append(reference);
+        append(reference);
         return this;
     }
 
     @Override
     public TextBuilder text(String text) {
-        builder.append(text);
+        append(text);
         return this;
     }
 
     @Override
     public TextBuilder newline() {
-        this.builder.append(indent).append(System.lineSeparator());
-        return this;
+        if (depth < NEWLINES.length) {
+            return append(NEWLINES[depth]);
+        }
+
+        // Nesting this deep is exceedingly rare, just append the tabs one by one.
+        for (var i = 0; i < depth; ++i) {
+            append("\t");
+        }
+
+        return append(System.lineSeparator());
     }
 
     @Override
     public TextBuilder space() {
-        this.builder.append("&nbsp;");
+        append(" ");
         return this;
     }
 
     @Override
     public TextBuilder indented(Consumer<SourceBuilder> build) {
-        this.indent += "\t";
+        depth += 1;
         build.accept(this);
-        this.indent = this.indent.substring(1);
+        depth -= 1;
+        return this;
+    }
+
+    private TextBuilder append(final String value) {
+        try {
+            builder.append(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
         return this;
     }
 }
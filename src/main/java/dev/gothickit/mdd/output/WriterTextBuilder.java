@@ -0,0 +1,59 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.output;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A {@link TextBuilder} which streams its output into a {@link Writer} instead of keeping it in memory, so that
+ * arbitrarily large sources can be produced with a constant amount of memory. The output is identical to the one of
+ * a {@link TextBuilder}. Since nothing is retained, {@link #toString()} only describes where the output goes.
+ */
+public class WriterTextBuilder extends TextBuilder implements Closeable, Flushable {
+    private final Writer writer;
+    private final String target;
+
+    public WriterTextBuilder(final @NotNull Writer writer) {
+        this(writer, writer.toString());
+    }
+
+    public WriterTextBuilder(final @NotNull WritableByteChannel channel, final @NotNull Charset charset) {
+        this(new BufferedWriter(Channels.newWriter(channel, charset)), channel.toString());
+    }
+
+    public WriterTextBuilder(final @NotNull Path path, final @NotNull Charset charset) throws IOException {
+        this(Files.newBufferedWriter(path, charset), path.toString());
+    }
+
+    private WriterTextBuilder(final @NotNull Writer writer, final @NotNull String target) {
+        super(writer);
+        this.writer = writer;
+        this.target = target;
+    }
+
+    @Override
+    public String toString() {
+        return "WriterTextBuilder[" + target + "]";
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
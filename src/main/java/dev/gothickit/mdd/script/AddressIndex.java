@@ -0,0 +1,48 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import java.util.Arrays;
+
+/**
+ * Maps code addresses to the symbols whose code starts there, stored as two parallel arrays sorted by address. Lookups
+ * are a binary search over a flat {@code int[]}, which avoids boxing every address on the hot path of the decompiler.
+ */
+final class AddressIndex {
+    private final int[] addresses;
+    private final int[] indices;
+
+    /**
+     * @param entries The entries to index, each packed as {@code (long) address << 32 | index}. If multiple symbols
+     *                start at the same address, the one with the lowest index wins.
+     */
+    AddressIndex(final long[] entries, int count) {
+        Arrays.sort(entries, 0, count);
+
+        var addresses = new int[count];
+        var indices = new int[count];
+        var size = 0;
+
+        for (var i = 0; i < count; ++i) {
+            var address = (int) (entries[i] >> 32);
+            if (size > 0 && addresses[size - 1] == address) {
+                continue;
+            }
+
+            addresses[size] = address;
+            indices[size] = (int) entries[i];
+            size += 1;
+        }
+
+        this.addresses = Arrays.copyOf(addresses, size);
+        this.indices = Arrays.copyOf(indices, size);
+    }
+
+    /**
+     * @return The index of the symbol whose code starts at the given address or -1.
+     */
+    int get(int address) {
+        var position = Arrays.binarySearch(addresses, address);
+        return position < 0 ? -1 : indices[position];
+    }
+}
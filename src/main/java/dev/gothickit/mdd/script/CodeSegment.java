@@ -0,0 +1,138 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusOpcode;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The decoded code stack of a script. All instructions are decoded once into parallel arrays indexed by their
+ * address, so that walking the code does not require any native calls or allocations. Only addresses at which an
+ * instruction starts contain valid data.
+ */
+public final class CodeSegment {
+    private static final DaedalusOpcode[] OPCODES = new DaedalusOpcode[256];
+
+    static {
+        OPCODES[0] = DaedalusOpcode.ADD;
+        OPCODES[1] = DaedalusOpcode.SUB;
+        OPCODES[2] = DaedalusOpcode.MUL;
+        OPCODES[3] = DaedalusOpcode.DIV;
+        OPCODES[4] = DaedalusOpcode.MOD;
+        OPCODES[5] = DaedalusOpcode.OR;
+        OPCODES[6] = DaedalusOpcode.ANDB;
+        OPCODES[7] = DaedalusOpcode.LT;
+        OPCODES[8] = DaedalusOpcode.GT;
+        OPCODES[9] = DaedalusOpcode.MOVI;
+        OPCODES[11] = DaedalusOpcode.ORR;
+        OPCODES[12] = DaedalusOpcode.AND;
+        OPCODES[13] = DaedalusOpcode.LSL;
+        OPCODES[14] = DaedalusOpcode.LSR;
+        OPCODES[15] = DaedalusOpcode.LTE;
+        OPCODES[16] = DaedalusOpcode.EQ;
+        OPCODES[17] = DaedalusOpcode.NEQ;
+        OPCODES[18] = DaedalusOpcode.GTE;
+        OPCODES[19] = DaedalusOpcode.ADDMOVI;
+        OPCODES[20] = DaedalusOpcode.SUBMOVI;
+        OPCODES[21] = DaedalusOpcode.MULMOVI;
+        OPCODES[22] = DaedalusOpcode.DIVMOVI;
+        OPCODES[30] = DaedalusOpcode.PLUS;
+        OPCODES[31] = DaedalusOpcode.NEGATE;
+        OPCODES[32] = DaedalusOpcode.NOT;
+        OPCODES[33] = DaedalusOpcode.CMPL;
+        OPCODES[45] = DaedalusOpcode.NOP;
+        OPCODES[60] = DaedalusOpcode.RSR;
+        OPCODES[61] = DaedalusOpcode.BL;
+        OPCODES[62] = DaedalusOpcode.BE;
+        OPCODES[64] = DaedalusOpcode.PUSHI;
+        OPCODES[65] = DaedalusOpcode.PUSHV;
+        OPCODES[67] = DaedalusOpcode.PUSHVI;
+        OPCODES[70] = DaedalusOpcode.MOVS;
+        OPCODES[71] = DaedalusOpcode.MOVSS;
+        OPCODES[72] = DaedalusOpcode.MOVVF;
+        OPCODES[73] = DaedalusOpcode.MOVF;
+        OPCODES[74] = DaedalusOpcode.MOVVI;
+        OPCODES[75] = DaedalusOpcode.B;
+        OPCODES[76] = DaedalusOpcode.BZ;
+        OPCODES[80] = DaedalusOpcode.GMOVI;
+        OPCODES[245] = DaedalusOpcode.PUSHVV;
+    }
+
+    private final byte[] op;
+    private final int[] data;
+    private final byte[] index;
+    private final int[] size;
+
+    CodeSegment(int length) {
+        this.op = new byte[length];
+        this.data = new int[length];
+        this.index = new byte[length];
+        this.size = new int[length];
+    }
+
+    /**
+     * Decodes raw Daedalus bytecode. The first byte remaining in the buffer is treated as address zero.
+     */
+    public static @NotNull CodeSegment decode(final @NotNull ByteBuffer buffer) {
+        var code = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        var segment = new CodeSegment(code.remaining());
+
+        while (code.hasRemaining()) {
+            var address = code.position();
+            var op = code.get();
+            var opcode = OPCODES[op & 0xFF];
+            if (opcode == null) {
+                throw new IllegalStateException("Invalid opcode " + (op & 0xFF) + " at address " + address);
+            }
+
+            switch (opcode) {
+                case BL, BE, PUSHI, PUSHV, PUSHVI, B, BZ, GMOVI -> segment.put(address, op, code.getInt(), (byte) 0, 5);
+                case PUSHVV -> segment.put(address, op, code.getInt(), code.get(), 6);
+                default -> segment.put(address, op, 0, (byte) 0, 1);
+            }
+        }
+
+        return segment;
+    }
+
+    void put(int address, byte op, int data, byte index, int size) {
+        this.op[address] = op;
+        this.data[address] = data;
+        this.index[address] = index;
+        this.size[address] = size;
+    }
+
+    public int getLength() {
+        return op.length;
+    }
+
+    /**
+     * @return Whether an instruction starts at the given address.
+     */
+    public boolean contains(int address) {
+        return address >= 0 && address < size.length && size[address] != 0;
+    }
+
+    public DaedalusOpcode getOpcode(int address) {
+        return OPCODES[op[address] & 0xFF];
+    }
+
+    public byte getRawOpcode(int address) {
+        return op[address];
+    }
+
+    public int getData(int address) {
+        return data[address];
+    }
+
+    public int getIndex(int address) {
+        return index[address] & 0xFF;
+    }
+
+    public int getSize(int address) {
+        return size[address];
+    }
+}
@@ -0,0 +1,162 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A script loaded directly from a memory-mapped compiled Daedalus file. Does not require any native libraries.
+ */
+public final class DatScript implements Script {
+    private final SymbolTable symbols;
+    private final CodeSegment code;
+
+    private DatScript(SymbolTable symbols, CodeSegment code) {
+        this.symbols = symbols;
+        this.code = code;
+    }
+
+    public static @NotNull DatScript load(final @NotNull Path path, final @NotNull Charset encoding) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parse(buffer, encoding);
+        }
+    }
+
+    public static @NotNull DatScript parse(final @NotNull ByteBuffer buffer, final @NotNull Charset encoding) throws IOException {
+        var in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            in.get(); // version
+            var count = in.getInt();
+            if (count < 0 || (long) count * 4 > in.remaining()) {
+                throw new IOException("Invalid symbol count: " + count);
+            }
+
+            in.position(in.position() + count * 4); // Skip the sort table
+
+            var symbols = new SymbolTable(count);
+            for (var i = 0; i < count; ++i) {
+                readSymbol(in, encoding, symbols, i);
+            }
+            symbols.seal();
+
+            var length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new IOException("Invalid code size: " + length);
+            }
+
+            var code = CodeSegment.decode(in.slice().limit(length));
+            return new DatScript(symbols, code);
+        } catch (BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Malformed script", e);
+        }
+    }
+
+    private static void readSymbol(ByteBuffer in, Charset encoding, SymbolTable table, int i) throws IOException {
+        var name = "";
+        var generated = false;
+
+        if (in.getInt() != 0) {
+            // Names of symbols generated by the compiler start with 0xFF.
+            if (in.get(in.position()) == (byte) 0xFF) {
+                generated = true;
+                in.get();
+                name = "$" + readLine(in, encoding);
+            } else {
+                name = readLine(in, encoding);
+            }
+        }
+
+        var offset = in.getInt();
+        var properties = in.getInt();
+        var size = properties & 0xFFF;
+        var flags = (properties >>> 16) & 0x3F;
+
+        var type = (properties >>> 12) & 0xF;
+        if (type >= SymbolTable.TYPES.length) {
+            throw new IOException("Invalid type " + type + " of symbol " + name);
+        }
+
+        var returnType = 0;
+        if (SymbolTable.TYPES[type] == DaedalusDataType.FUNCTION && (flags & SymbolTable.FLAG_RETURN) != 0 &&
+                offset >= 0 && offset < SymbolTable.TYPES.length) {
+            returnType = offset;
+        }
+
+        table.names[i] = table.intern(name);
+        table.types[i] = (byte) type;
+        table.returnTypes[i] = (byte) returnType;
+        table.flags[i] = (byte) (flags | (generated ? SymbolTable.FLAG_GENERATED : 0));
+        table.sizes[i] = size;
+        table.offsets[i] = offset;
+        table.fileIndices[i] = in.getInt() & 0x7FFFF;
+        table.lineStarts[i] = in.getInt() & 0x7FFFF;
+        table.lineCounts[i] = in.getInt() & 0x7FFFF;
+        table.charStarts[i] = in.getInt() & 0xFFFFFF;
+        table.charCounts[i] = in.getInt() & 0xFFFFFF;
+
+        if (!table.isMember(i)) {
+            switch (table.getType(i)) {
+                case FLOAT -> {
+                    var values = new float[size];
+                    for (var j = 0; j < size; ++j) {
+                        values[j] = in.getFloat();
+                    }
+                    table.values[i] = values;
+                }
+                case INT -> {
+                    var values = new int[size];
+                    for (var j = 0; j < size; ++j) {
+                        values[j] = in.getInt();
+                    }
+                    table.values[i] = values;
+                }
+                case STRING -> {
+                    var values = new String[size];
+                    for (var j = 0; j < size; ++j) {
+                        values[j] = table.intern(readLine(in, encoding));
+                    }
+                    table.values[i] = values;
+                }
+                case CLASS -> in.getInt(); // class offset
+                case FUNCTION, PROTOTYPE, INSTANCE -> table.addresses[i] = in.getInt();
+                default -> {
+                }
+            }
+        }
+
+        table.parents[i] = in.getInt();
+    }
+
+    private static String readLine(ByteBuffer in, Charset encoding) {
+        var start = in.position();
+        while (in.get() != '\n') {
+            // Skip to the end of the line
+        }
+
+        var bytes = new byte[in.position() - start - 1];
+        in.get(start, bytes);
+        return new String(bytes, encoding);
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    @Override
+    public CodeSegment getCode() {
+        return code;
+    }
+}
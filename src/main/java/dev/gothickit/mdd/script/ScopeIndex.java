@@ -0,0 +1,89 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Maps every class and function to the range of symbols declared within it, and every symbol to the scope it is
+ * declared in. Built in a single pass when the symbol table is loaded.
+ * <p>
+ * The members of a scope are the symbols directly following it whose names are prefixed with the scope's name. For
+ * functions, this includes the parameters, which are always the first {@link Symbol#getSize()} symbols after the
+ * function itself.
+ */
+public final class ScopeIndex {
+    private final int[] scopes;
+    private final int[] ends;
+    private final int[] locals;
+
+    ScopeIndex(final @NotNull SymbolTable table) {
+        var count = table.getSymbolCount();
+        this.scopes = new int[count];
+        this.ends = new int[count];
+        this.locals = new int[count];
+        Arrays.fill(scopes, -1);
+
+        for (var i = 0; i < count; ++i) {
+            var type = table.getType(i);
+            var start = i + 1;
+            ends[i] = start;
+            locals[i] = start;
+
+            if (type == DaedalusDataType.FUNCTION && table.isConst(i)) {
+                locals[i] = Math.min(start + table.getSize(i), count);
+            } else if (type != DaedalusDataType.CLASS) {
+                continue;
+            }
+
+            var prefix = table.getName(i) + ".";
+            var end = locals[i];
+            while (end < count && table.getName(end).startsWith(prefix)) {
+                end += 1;
+            }
+
+            ends[i] = end;
+            for (var j = start; j < end; ++j) {
+                scopes[j] = i;
+            }
+        }
+    }
+
+    /**
+     * @return The index of the class or function the given symbol is declared in or -1.
+     */
+    public int getScope(int index) {
+        return scopes[index];
+    }
+
+    /**
+     * @return The index of the first member of the given scope.
+     */
+    public int getStart(int scope) {
+        return scope + 1;
+    }
+
+    /**
+     * @return The index of the first local variable of the given function. For classes, this is the first member.
+     */
+    public int getLocalsStart(int scope) {
+        return locals[scope];
+    }
+
+    /**
+     * @return The index after the last member of the given scope.
+     */
+    public int getEnd(int scope) {
+        return ends[scope];
+    }
+
+    /**
+     * @return Whether the given symbol is a local variable of the given function or a member of the given class.
+     */
+    public boolean isLocal(int scope, int index) {
+        return scopes[index] == scope && index >= locals[scope];
+    }
+}
@@ -0,0 +1,28 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * A compiled Daedalus script, independent of the backend which loaded it.
+ */
+public interface Script {
+    SymbolTable getSymbolTable();
+
+    CodeSegment getCode();
+
+    default List<Symbol> getSymbols() {
+        return getSymbolTable().getSymbols();
+    }
+
+    default @Nullable Symbol getSymbolByIndex(int index) {
+        return getSymbolTable().getSymbol(index);
+    }
+
+    default @Nullable Symbol getSymbolByAddress(int address) {
+        return getSymbolTable().getSymbol(getSymbolTable().getIndexByAddress(address));
+    }
+}
@@ -0,0 +1,28 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+public enum ScriptBackend {
+    /**
+     * Loads scripts using the native ZenKit library. Requires ZenKit to be loaded with the desired encoding.
+     */
+    ZENKIT,
+
+    /**
+     * Loads scripts using {@link DatScript}, which does not require any native libraries.
+     */
+    JAVA;
+
+    public @NotNull Script load(final @NotNull Path path, final @NotNull String encoding) throws IOException {
+        return switch (this) {
+            case ZENKIT -> ZenKitScript.load(path);
+            case JAVA -> DatScript.load(path, Charset.forName(encoding));
+        };
+    }
+}
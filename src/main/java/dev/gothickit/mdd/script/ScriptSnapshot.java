@@ -0,0 +1,212 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Stores the symbol table and code segment of a loaded script in a compact binary file, so that the script can be
+ * loaded again without parsing it. The scope index is not stored, since it is rebuilt from the symbol table in a
+ * single pass when the snapshot is read.
+ */
+public final class ScriptSnapshot implements Script {
+    private static final int MAGIC = 0x4d444453; // "MDDS"
+    private static final int VERSION = 1;
+
+    private static final byte VALUES_NONE = 0;
+    private static final byte VALUES_FLOAT = 1;
+    private static final byte VALUES_INT = 2;
+    private static final byte VALUES_STRING = 3;
+
+    private final SymbolTable symbols;
+    private final CodeSegment code;
+
+    private ScriptSnapshot(SymbolTable symbols, CodeSegment code) {
+        this.symbols = symbols;
+        this.code = code;
+    }
+
+    public static void write(final @NotNull Script script, final @NotNull Path path) throws IOException {
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            var table = script.getSymbolTable();
+            out.writeInt(table.getSymbolCount());
+            for (var i = 0; i < table.getSymbolCount(); ++i) {
+                writeSymbol(out, table, i);
+            }
+
+            var code = script.getCode();
+            out.writeInt(code.getLength());
+            for (var address = 0; address < code.getLength(); address += Math.max(1, code.getSize(address))) {
+                var size = code.getSize(address);
+                out.writeByte(size);
+
+                if (size != 0) {
+                    out.writeByte(code.getRawOpcode(address));
+                    out.writeInt(code.getData(address));
+                    out.writeByte(code.getIndex(address));
+                }
+            }
+        }
+    }
+
+    public static @NotNull ScriptSnapshot read(final @NotNull Path path) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a script snapshot or outdated: " + path);
+            }
+
+            var count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Invalid symbol count: " + count);
+            }
+
+            var table = new SymbolTable(count);
+            for (var i = 0; i < count; ++i) {
+                readSymbol(in, table, i);
+            }
+            table.seal();
+
+            var code = new CodeSegment(in.readInt());
+            for (var address = 0; address < code.getLength(); ) {
+                var size = in.readUnsignedByte();
+                if (size == 0) {
+                    address += 1;
+                    continue;
+                }
+
+                code.put(address, in.readByte(), in.readInt(), in.readByte(), size);
+                address += size;
+            }
+
+            return new ScriptSnapshot(table, code);
+        }
+    }
+
+    private static void writeSymbol(DataOutputStream out, SymbolTable table, int i) throws IOException {
+        writeString(out, table.names[i]);
+        out.writeByte(table.types[i]);
+        out.writeByte(table.returnTypes[i]);
+        out.writeByte(table.flags[i]);
+        out.writeInt(table.parents[i]);
+        out.writeInt(table.addresses[i]);
+        out.writeInt(table.sizes[i]);
+        out.writeInt(table.offsets[i]);
+        out.writeInt(table.fileIndices[i]);
+        out.writeInt(table.lineStarts[i]);
+        out.writeInt(table.lineCounts[i]);
+        out.writeInt(table.charStarts[i]);
+        out.writeInt(table.charCounts[i]);
+
+        if (table.values[i] instanceof float[] values) {
+            out.writeByte(VALUES_FLOAT);
+            out.writeInt(values.length);
+            for (var value : values) {
+                out.writeFloat(value);
+            }
+        } else if (table.values[i] instanceof int[] values) {
+            out.writeByte(VALUES_INT);
+            out.writeInt(values.length);
+            for (var value : values) {
+                out.writeInt(value);
+            }
+        } else if (table.values[i] instanceof String[] values) {
+            out.writeByte(VALUES_STRING);
+            out.writeInt(values.length);
+            for (var value : values) {
+                writeString(out, value);
+            }
+        } else {
+            out.writeByte(VALUES_NONE);
+        }
+    }
+
+    private static void readSymbol(DataInputStream in, SymbolTable table, int i) throws IOException {
+        table.names[i] = table.intern(readString(in));
+        table.types[i] = in.readByte();
+        table.returnTypes[i] = in.readByte();
+        table.flags[i] = in.readByte();
+        table.parents[i] = in.readInt();
+        table.addresses[i] = in.readInt();
+        table.sizes[i] = in.readInt();
+        table.offsets[i] = in.readInt();
+        table.fileIndices[i] = in.readInt();
+        table.lineStarts[i] = in.readInt();
+        table.lineCounts[i] = in.readInt();
+        table.charStarts[i] = in.readInt();
+        table.charCounts[i] = in.readInt();
+
+        if (table.types[i] < 0 || table.types[i] >= SymbolTable.TYPES.length) {
+            throw new IOException("Invalid type " + table.types[i] + " of symbol " + table.names[i]);
+        }
+
+        switch (in.readByte()) {
+            case VALUES_FLOAT -> {
+                var values = new float[in.readInt()];
+                for (var j = 0; j < values.length; ++j) {
+                    values[j] = in.readFloat();
+                }
+                table.values[i] = values;
+            }
+            case VALUES_INT -> {
+                var values = new int[in.readInt()];
+                for (var j = 0; j < values.length; ++j) {
+                    values[j] = in.readInt();
+                }
+                table.values[i] = values;
+            }
+            case VALUES_STRING -> {
+                var values = new String[in.readInt()];
+                for (var j = 0; j < values.length; ++j) {
+                    var value = readString(in);
+                    values[j] = value == null ? null : table.intern(value);
+                }
+                table.values[i] = values;
+            }
+            case VALUES_NONE -> {
+            }
+            default -> throw new IOException("Invalid values of symbol " + table.names[i]);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    @Override
+    public CodeSegment getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,245 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * A trigram index over the names of a set of symbols, used to search for symbols by name. Queries match names
+ * containing the query (substring matches) and, if there are only few of those, names containing all characters of
+ * the query in order (fuzzy matches). Results are ranked by how well they match: exact matches first, then prefix
+ * matches, matches at the start of a word, other substring matches and finally fuzzy matches.
+ * <p>
+ * When a query contains the previous one, e.g. because the user typed another character, only the previous matches
+ * have to be checked again.
+ */
+public final class SearchIndex {
+    private static final int SCORE_EXACT = 0;
+    private static final int SCORE_PREFIX = 1;
+    private static final int SCORE_WORD = 2;
+    private static final int SCORE_SUBSTRING = 3;
+    private static final int SCORE_FUZZY = 4;
+
+    private final int[] symbols;
+    private final String[] names;
+    private final int[] all;
+    private final HashMap<Long, int[]> trigrams = new HashMap<>();
+
+    /**
+     * @param symbols The indices of the symbols to index. Results are returned in this order if they rank equally.
+     */
+    public SearchIndex(final @NotNull SymbolTable table, final int @NotNull [] symbols) {
+        this.symbols = symbols;
+        this.names = new String[symbols.length];
+        this.all = new int[symbols.length];
+
+        var postings = new HashMap<Long, Postings>();
+        for (var i = 0; i < symbols.length; ++i) {
+            var name = table.getName(symbols[i]).toUpperCase(Locale.ROOT);
+            names[i] = name;
+            all[i] = i;
+
+            for (var j = 0; j + 3 <= name.length(); ++j) {
+                postings.computeIfAbsent(trigram(name, j), k -> new Postings()).add(i);
+            }
+        }
+
+        for (var entry : postings.entrySet()) {
+            trigrams.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Searches for symbols whose name matches the given query.
+     *
+     * @param filter   Only symbols whose index is accepted by the filter are returned.
+     * @param limit    The maximum number of symbols to return.
+     * @param previous The result of a previous query of this index, used to narrow the search down if possible.
+     */
+    public @NotNull Result search(
+            final @NotNull String query,
+            final @NotNull IntPredicate filter,
+            int limit,
+            final @Nullable Result previous
+    ) {
+        var text = query.toUpperCase(Locale.ROOT);
+        var narrowed = previous != null && previous.index == this && text.contains(previous.query);
+
+        // Every name containing the query also contains the previous query, so only the previous matches need to be
+        // checked again. The same holds for fuzzy matches.
+        var candidates = getCandidates(text);
+        if (narrowed && (candidates == null || previous.substring.length < candidates.length)) {
+            candidates = previous.substring;
+        }
+
+        var substring = retain(candidates == null ? all : candidates, i -> names[i].contains(text));
+
+        var found = 0;
+        for (var i : substring) {
+            if (filter.test(symbols[i])) {
+                found += 1;
+            }
+        }
+
+        int[] fuzzy = null;
+        if (found < limit) {
+            var base = narrowed && previous.fuzzy != null ? previous.fuzzy : all;
+            fuzzy = retain(base, i -> isSubsequence(text, names[i]));
+        }
+
+        // Rank by score, then by name length and then by the original order.
+        var ranked = new long[fuzzy != null ? fuzzy.length : substring.length];
+        var count = 0;
+        for (var i : fuzzy != null ? fuzzy : substring) {
+            if (!filter.test(symbols[i])) {
+                continue;
+            }
+
+            var score = getScore(text, names[i]);
+            ranked[count++] = ((long) score << 48) | ((long) Math.min(names[i].length(), 0xFFFF) << 32) | i;
+        }
+
+        Arrays.sort(ranked, 0, count);
+
+        var results = new int[Math.min(count, limit)];
+        for (var i = 0; i < results.length; ++i) {
+            results[i] = symbols[(int) ranked[i]];
+        }
+
+        return new Result(this, text, substring, fuzzy, results, count);
+    }
+
+    private int @Nullable [] getCandidates(final @NotNull String text) {
+        if (text.length() < 3) {
+            return null;
+        }
+
+        var lists = new int[text.length() - 2][];
+        for (var j = 0; j + 3 <= text.length(); ++j) {
+            var list = trigrams.get(trigram(text, j));
+            if (list == null) {
+                return new int[0];
+            }
+
+            lists[j] = list;
+        }
+
+        Arrays.sort(lists, Comparator.comparingInt(l -> l.length));
+
+        var result = lists[0];
+        for (var j = 1; j < lists.length && result.length > 0; ++j) {
+            var other = lists[j];
+            result = retain(result, i -> Arrays.binarySearch(other, i) >= 0);
+        }
+
+        return result;
+    }
+
+    private static int getScore(final @NotNull String text, final @NotNull String name) {
+        var position = name.indexOf(text);
+        if (position < 0) {
+            return SCORE_FUZZY;
+        } else if (position == 0) {
+            return name.length() == text.length() ? SCORE_EXACT : SCORE_PREFIX;
+        }
+
+        // Daedalus names are usually made up of words separated by underscores.
+        for (; position >= 0; position = name.indexOf(text, position + 1)) {
+            var previous = name.charAt(position - 1);
+            if (previous == '_' || previous == '.') {
+                return SCORE_WORD;
+            }
+        }
+
+        return SCORE_SUBSTRING;
+    }
+
+    private static boolean isSubsequence(final @NotNull String text, final @NotNull String name) {
+        var j = 0;
+        for (var i = 0; i < name.length() && j < text.length(); ++i) {
+            if (name.charAt(i) == text.charAt(j)) {
+                j += 1;
+            }
+        }
+
+        return j == text.length();
+    }
+
+    private static int[] retain(final int @NotNull [] positions, final @NotNull IntPredicate predicate) {
+        var result = new int[positions.length];
+        var count = 0;
+
+        for (var position : positions) {
+            if (predicate.test(position)) {
+                result[count++] = position;
+            }
+        }
+
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static long trigram(final @NotNull String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    public static final class Result {
+        private final SearchIndex index;
+        private final String query;
+        private final int[] substring;
+        private final int[] fuzzy;
+        private final int[] symbols;
+        private final int matches;
+
+        private Result(SearchIndex index, String query, int[] substring, int[] fuzzy, int[] symbols, int matches) {
+            this.index = index;
+            this.query = query;
+            this.substring = substring;
+            this.fuzzy = fuzzy;
+            this.symbols = symbols;
+            this.matches = matches;
+        }
+
+        /**
+         * @return The indices of the best matching symbols, best match first.
+         */
+        public int[] getSymbols() {
+            return symbols;
+        }
+
+        /**
+         * @return The number of matching symbols, which may be larger than the number of symbols returned.
+         */
+        public int getMatchCount() {
+            return matches;
+        }
+    }
+
+    private static final class Postings {
+        private int[] positions = new int[4];
+        private int size = 0;
+
+        void add(int position) {
+            // Positions are added in ascending order, but a trigram can occur in a name twice.
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+
+/**
+ * A symbol of a compiled Daedalus script, independent of the backend which loaded it.
+ */
+public interface Symbol {
+    String getName();
+
+    int getIndex();
+
+    int getAddress();
+
+    int getSize();
+
+    DaedalusDataType getType();
+
+    DaedalusDataType getReturnType();
+
+    boolean isConst();
+
+    boolean isMember();
+
+    boolean isExternal();
+
+    boolean isMerged();
+
+    boolean isGenerated();
+
+    int getParent();
+
+    int getOffsetAsMember();
+
+    int getClassSize();
+
+    int getFileIndex();
+
+    int getLineStart();
+
+    int getLineCount();
+
+    int getCharStart();
+
+    int getCharCount();
+
+    int getInt(int index);
+
+    float getFloat(int index);
+
+    String getString(int index);
+}
@@ -0,0 +1,217 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A snapshot of all symbols of a script, stored as parallel primitive arrays indexed by symbol index. Backends fill
+ * the table once while loading, after which all lookups run against plain heap memory. Names are interned, so that
+ * symbols can also be looked up by name.
+ */
+public final class SymbolTable {
+    static final int FLAG_CONST = 1;
+    static final int FLAG_RETURN = 2;
+    static final int FLAG_MEMBER = 4;
+    static final int FLAG_EXTERNAL = 8;
+    static final int FLAG_MERGED = 16;
+    static final int FLAG_GENERATED = 64;
+
+    static final DaedalusDataType[] TYPES = {
+            DaedalusDataType.VOID,
+            DaedalusDataType.FLOAT,
+            DaedalusDataType.INT,
+            DaedalusDataType.STRING,
+            DaedalusDataType.CLASS,
+            DaedalusDataType.FUNCTION,
+            DaedalusDataType.PROTOTYPE,
+            DaedalusDataType.INSTANCE,
+    };
+
+    final String[] names;
+    final byte[] types;
+    final byte[] returnTypes;
+    final byte[] flags;
+    final int[] parents;
+    final int[] addresses;
+    final int[] sizes;
+    final int[] offsets;
+    final int[] fileIndices;
+    final int[] lineStarts;
+    final int[] lineCounts;
+    final int[] charStarts;
+    final int[] charCounts;
+    final Object[] values;
+
+    private final HashMap<String, Integer> indicesByName;
+    private final HashMap<String, String> strings = new HashMap<>();
+    private final Symbol[] symbols;
+    private final List<Symbol> symbolList;
+    private AddressIndex indicesByAddress;
+    private ScopeIndex scopes;
+
+    SymbolTable(int count) {
+        this.names = new String[count];
+        this.types = new byte[count];
+        this.returnTypes = new byte[count];
+        this.flags = new byte[count];
+        this.parents = new int[count];
+        this.addresses = new int[count];
+        this.sizes = new int[count];
+        this.offsets = new int[count];
+        this.fileIndices = new int[count];
+        this.lineStarts = new int[count];
+        this.lineCounts = new int[count];
+        this.charStarts = new int[count];
+        this.charCounts = new int[count];
+        this.values = new Object[count];
+        this.indicesByName = new HashMap<>(count * 2);
+        this.symbols = new Symbol[count];
+        this.symbolList = new SymbolList();
+    }
+
+    static byte encodeType(final @NotNull DaedalusDataType type) {
+        for (var i = 0; i < TYPES.length; ++i) {
+            if (TYPES[i] == type) {
+                return (byte) i;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown type: " + type);
+    }
+
+    /**
+     * Interns the given string, so that equal names and literals share a single instance.
+     */
+    String intern(final @NotNull String value) {
+        var existing = strings.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * Finishes loading the table. Must be called by the backend once all symbols have been filled in.
+     */
+    void seal() {
+        var entries = new long[names.length];
+        var count = 0;
+
+        for (var i = 0; i < names.length; ++i) {
+            symbols[i] = new TableSymbol(this, i);
+            indicesByName.putIfAbsent(names[i], i);
+
+            if (isMember(i) || isExternal(i)) {
+                continue;
+            }
+
+            var type = getType(i);
+            if ((type == DaedalusDataType.FUNCTION && isConst(i)) || type == DaedalusDataType.PROTOTYPE ||
+                    type == DaedalusDataType.INSTANCE) {
+                entries[count++] = ((long) addresses[i] << 32) | i;
+            }
+        }
+
+        indicesByAddress = new AddressIndex(entries, count);
+
+        // Literal values are interned while loading, the map is not needed afterward.
+        strings.clear();
+        scopes = new ScopeIndex(this);
+    }
+
+    public int getSymbolCount() {
+        return names.length;
+    }
+
+    public List<Symbol> getSymbols() {
+        return symbolList;
+    }
+
+    public @Nullable Symbol getSymbol(int index) {
+        return index < 0 || index >= symbols.length ? null : symbols[index];
+    }
+
+    public ScopeIndex getScopes() {
+        return scopes;
+    }
+
+    /**
+     * @return The index of the function, prototype or instance whose code starts at the given address or -1.
+     */
+    public int getIndexByAddress(int address) {
+        return indicesByAddress.get(address);
+    }
+
+    /**
+     * @return The index of the first symbol with the given name or -1.
+     */
+    public int getIndexByName(final @NotNull String name) {
+        var index = indicesByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public DaedalusDataType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public DaedalusDataType getReturnType(int index) {
+        return TYPES[returnTypes[index]];
+    }
+
+    public boolean isConst(int index) {
+        return (flags[index] & FLAG_CONST) != 0;
+    }
+
+    public boolean isMember(int index) {
+        return (flags[index] & FLAG_MEMBER) != 0;
+    }
+
+    public boolean isExternal(int index) {
+        return (flags[index] & FLAG_EXTERNAL) != 0;
+    }
+
+    public boolean isMerged(int index) {
+        return (flags[index] & FLAG_MERGED) != 0;
+    }
+
+    public boolean isGenerated(int index) {
+        return (flags[index] & FLAG_GENERATED) != 0;
+    }
+
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    public int getAddress(int index) {
+        return addresses[index];
+    }
+
+    public int getSize(int index) {
+        return sizes[index];
+    }
+
+    public int getFileIndex(int index) {
+        return fileIndices[index];
+    }
+
+    private final class SymbolList extends AbstractList<Symbol> implements RandomAccess {
+        @Override
+        public Symbol get(int index) {
+            return symbols[index];
+        }
+
+        @Override
+        public int size() {
+            return symbols.length;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+
+/**
+ * A lightweight view of a single entry of a {@link SymbolTable}.
+ */
+final class TableSymbol implements Symbol {
+    private final SymbolTable table;
+    private final int index;
+
+    TableSymbol(SymbolTable table, int index) {
+        this.table = table;
+        this.index = index;
+    }
+
+    @Override
+    public String getName() {
+        return table.names[index];
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getAddress() {
+        return table.addresses[index];
+    }
+
+    @Override
+    public int getSize() {
+        return table.sizes[index];
+    }
+
+    @Override
+    public DaedalusDataType getType() {
+        return table.getType(index);
+    }
+
+    @Override
+    public DaedalusDataType getReturnType() {
+        return table.getReturnType(index);
+    }
+
+    @Override
+    public boolean isConst() {
+        return table.isConst(index);
+    }
+
+    @Override
+    public boolean isMember() {
+        return table.isMember(index);
+    }
+
+    @Override
+    public boolean isExternal() {
+        return table.isExternal(index);
+    }
+
+    @Override
+    public boolean isMerged() {
+        return table.isMerged(index);
+    }
+
+    @Override
+    public boolean isGenerated() {
+        return table.isGenerated(index);
+    }
+
+    @Override
+    public int getParent() {
+        return table.parents[index];
+    }
+
+    @Override
+    public int getOffsetAsMember() {
+        return isMember() ? table.offsets[index] : 0;
+    }
+
+    @Override
+    public int getClassSize() {
+        return getType() == DaedalusDataType.CLASS ? table.offsets[index] : 0;
+    }
+
+    @Override
+    public int getFileIndex() {
+        return table.fileIndices[index];
+    }
+
+    @Override
+    public int getLineStart() {
+        return table.lineStarts[index];
+    }
+
+    @Override
+    public int getLineCount() {
+        return table.lineCounts[index];
+    }
+
+    @Override
+    public int getCharStart() {
+        return table.charStarts[index];
+    }
+
+    @Override
+    public int getCharCount() {
+        return table.charCounts[index];
+    }
+
+    @Override
+    public int getInt(int index) {
+        if (!(table.values[this.index] instanceof int[] values)) {
+            throw new IllegalStateException("Symbol " + getName() + " does not contain integer values");
+        }
+        return values[index];
+    }
+
+    @Override
+    public float getFloat(int index) {
+        if (!(table.values[this.index] instanceof float[] values)) {
+            throw new IllegalStateException("Symbol " + getName() + " does not contain float values");
+        }
+        return values[index];
+    }
+
+    @Override
+    public String getString(int index) {
+        if (!(table.values[this.index] instanceof String[] values)) {
+            throw new IllegalStateException("Symbol " + getName() + " does not contain string values");
+        }
+        return values[index];
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,167 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import dev.gothickit.zenkit.daedalus.DaedalusOpcode;
+import dev.gothickit.zenkit.daedalus.DaedalusScript;
+import dev.gothickit.zenkit.daedalus.DaedalusSymbol;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A script loaded using the native ZenKit library. All symbols and the code stack are copied out of the native
+ * script while loading, so no native calls are made afterward.
+ */
+public final class ZenKitScript implements Script {
+    private final SymbolTable symbols;
+    private final CodeSegment code;
+
+    private ZenKitScript(DaedalusScript script) {
+        this.symbols = snapshotSymbols(script);
+        this.code = decodeCode(script);
+    }
+
+    public static @NotNull ZenKitScript load(final @NotNull Path path) throws IOException {
+        var script = DaedalusScript.load(path.toString());
+        if (script == null) {
+            throw new IOException("Failed to load script: " + path);
+        }
+
+        return new ZenKitScript(script);
+    }
+
+    private static @NotNull SymbolTable snapshotSymbols(final @NotNull DaedalusScript script) {
+        var source = script.getSymbols();
+        var table = new SymbolTable(source.size());
+
+        for (var i = 0; i < source.size(); ++i) {
+            var sym = source.get(i);
+            var type = sym.getType();
+            var flags = (sym.isConst() ? SymbolTable.FLAG_CONST : 0) |
+                    (sym.isMember() ? SymbolTable.FLAG_MEMBER : 0) |
+                    (sym.isExternal() ? SymbolTable.FLAG_EXTERNAL : 0) |
+                    (sym.isMerged() ? SymbolTable.FLAG_MERGED : 0) |
+                    (sym.isGenerated() ? SymbolTable.FLAG_GENERATED : 0);
+
+            table.names[i] = table.intern(sym.getName());
+            table.types[i] = SymbolTable.encodeType(type);
+            table.returnTypes[i] = SymbolTable.encodeType(sym.getReturnType());
+            table.flags[i] = (byte) flags;
+            table.parents[i] = sym.getParent();
+            table.addresses[i] = sym.getAddress();
+            table.sizes[i] = sym.getSize();
+            table.offsets[i] = sym.isMember() ? sym.getOffsetAsMember() : sym.getClassSize();
+            table.fileIndices[i] = sym.getFileIndex();
+            table.lineStarts[i] = sym.getLineStart();
+            table.lineCounts[i] = sym.getLineCount();
+            table.charStarts[i] = sym.getCharStart();
+            table.charCounts[i] = sym.getCharCount();
+
+            if (!sym.isMember()) {
+                table.values[i] = snapshotValues(table, sym, type);
+            }
+        }
+
+        table.seal();
+        return table;
+    }
+
+    private static Object snapshotValues(SymbolTable table, DaedalusSymbol sym, DaedalusDataType type) {
+        var size = sym.getSize();
+        switch (type) {
+            case FLOAT -> {
+                var values = new float[size];
+                for (var i = 0; i < size; ++i) {
+                    values[i] = sym.getFloat((short) i, null);
+                }
+                return values;
+            }
+            case INT -> {
+                var values = new int[size];
+                for (var i = 0; i < size; ++i) {
+                    values[i] = sym.getInt((short) i, null);
+                }
+                return values;
+            }
+            case STRING -> {
+                var values = new String[size];
+                for (var i = 0; i < size; ++i) {
+                    values[i] = table.intern(sym.getString((short) i, null));
+                }
+                return values;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Decodes the code stack of the given script. Since the length of the code stack is not exposed by ZenKit, it is
+     * derived from the code of the symbol with the highest address.
+     */
+    private static @NotNull CodeSegment decodeCode(final @NotNull DaedalusScript script) {
+        var last = -1;
+        for (var sym : script.getSymbols()) {
+            if (sym.isExternal() || sym.isMember()) {
+                continue;
+            }
+
+            var type = sym.getType();
+            if ((type == DaedalusDataType.FUNCTION && sym.isConst()) || type == DaedalusDataType.PROTOTYPE ||
+                    (type == DaedalusDataType.INSTANCE && sym.isConst())) {
+                last = Math.max(last, sym.getAddress());
+            }
+        }
+
+        if (last < 0) {
+            return new CodeSegment(0);
+        }
+
+        // Find the end of the last function. It is the first `RSR` after the furthest branch target. Addresses past the
+        // end of the code decode to empty instructions, so stop there if the function is never terminated.
+        var end = last;
+        var after = last;
+        while (true) {
+            var instruction = script.getInstruction(end);
+            if (instruction.size <= 0) {
+                break;
+            }
+
+            end += instruction.size;
+
+            var op = instruction.op();
+            if (op == DaedalusOpcode.RSR && end > after) {
+                break;
+            } else if (op == DaedalusOpcode.B || op == DaedalusOpcode.BZ) {
+                after = Math.max(after, instruction.data);
+            }
+        }
+
+        var segment = new CodeSegment(end);
+        for (var address = 0; address < end; ) {
+            var instruction = script.getInstruction(address);
+            if (instruction.size <= 0) {
+                throw new IllegalStateException("Invalid instruction at address " + address);
+            }
+
+            segment.put(address, (byte) instruction.op_, instruction.data, (byte) instruction.index, instruction.size);
+            address += instruction.size;
+        }
+
+        return segment;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
+    @Override
+    public CodeSegment getCode() {
+        return code;
+    }
+}
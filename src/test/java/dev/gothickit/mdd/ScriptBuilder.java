@@ -0,0 +1,336 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd;
+
+import dev.gothickit.mdd.script.DatScript;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds compiled Daedalus scripts for tests and benchmarks. Symbols and code are added in the order they appear in
+ * the script. Built scripts are loaded using the pure-Java backend, {@link #toByteArray()} allows loading them using
+ * any other backend.
+ */
+public final class ScriptBuilder {
+    public static final int CONST = 1;
+    public static final int RETURN = 2;
+    public static final int MEMBER = 4;
+    public static final int EXTERNAL = 8;
+
+    public static final int OP_ADD = 0;
+    public static final int OP_GT = 8;
+    public static final int OP_MOVI = 9;
+    public static final int OP_RSR = 60;
+    public static final int OP_BL = 61;
+    public static final int OP_BE = 62;
+    public static final int OP_PUSHI = 64;
+    public static final int OP_PUSHV = 65;
+    public static final int OP_MOVS = 70;
+    public static final int OP_B = 75;
+    public static final int OP_BZ = 76;
+
+    private static final int EXTERNAL_ADDRESS = 0x7000000;
+
+    private final List<Sym> symbols = new ArrayList<>();
+    private final Bytes code = new Bytes();
+    private int file = 0;
+
+    /**
+     * Generates a script which exercises all paths of the decompiler. It has one class with a prototype, two external
+     * functions, the given number of functions with nested conditionals, calls to the previous function and string
+     * literals, a global instance like {@code self} and the given number of instances.
+     */
+    public static Script generate(int functions, int instances, int depth) {
+        return fixture(functions, instances, depth).build();
+    }
+
+    /**
+     * @return A builder containing the script described in {@link #generate(int, int, int)}.
+     */
+    public static ScriptBuilder fixture(int functions, int instances, int depth) {
+        var builder = new ScriptBuilder();
+        var npc = builder.symbol("C_NPC", DaedalusDataType.CLASS, 3, 0, 800, -1);
+        var npcId = builder.symbol("C_NPC.ID", DaedalusDataType.INT, 1, MEMBER, 0, npc);
+        var npcName = builder.symbol("C_NPC.NAME", DaedalusDataType.STRING, 1, MEMBER, 4, npc);
+        builder.symbol("C_NPC.ATTRIBUTE", DaedalusDataType.INT, 8, MEMBER, 24, npc);
+
+        var print = builder.external("PRINT", DaedalusDataType.VOID, DaedalusDataType.STRING);
+        var random = builder.external("HLP_RANDOM", DaedalusDataType.INT, DaedalusDataType.INT);
+        var literal = builder.literal("Hello, World!");
+
+        var prototype = builder.symbol("NPC_DEFAULT", DaedalusDataType.PROTOTYPE, 0, 0, 0, npc);
+        builder.setAddress(prototype).op(OP_PUSHI, 0).op(OP_PUSHV, npcId).op(OP_MOVI).op(OP_RSR);
+
+        // A global, non-constant instance like `self` in the original scripts. Assignments of its index are resolved to
+        // instance references by the post-processor. It is declared after the functions, which have three symbols each.
+        var self = builder.symbols.size() + functions * 3;
+
+        var previous = -1;
+        for (var i = 0; i < functions; ++i) {
+            var fn = builder.function("FUNC_" + i, DaedalusDataType.INT, DaedalusDataType.INT);
+            var param = fn + 1;
+            var local = builder.symbol("FUNC_" + i + ".X", DaedalusDataType.INT, 1, 0, 0, -1);
+
+            builder.setAddress(fn).op(OP_PUSHV, param).op(OP_MOVI);
+            builder.op(OP_PUSHI, self).op(OP_PUSHV, local).op(OP_MOVI);
+            if (previous >= 0) {
+                builder.op(OP_PUSHV, param).op(OP_BL, builder.getAddress(previous)).op(OP_PUSHV, local).op(OP_MOVI);
+            }
+
+            builder.conditional(depth, param, local, print, random, literal);
+            builder.op(OP_PUSHV, local).op(OP_RSR);
+            previous = fn;
+        }
+
+        builder.symbol("SELF", DaedalusDataType.INSTANCE, 1, 0, 0, npc);
+
+        for (var i = 0; i < instances; ++i) {
+            var instance = builder.symbol("INST_" + i, DaedalusDataType.INSTANCE, 1, CONST, 0, prototype);
+            builder.setAddress(instance)
+                    .op(OP_BL, builder.getAddress(prototype))
+                    .op(OP_PUSHI, i).op(OP_PUSHV, npcId).op(OP_MOVI)
+                    .op(OP_PUSHV, literal).op(OP_PUSHV, npcName).op(OP_MOVS)
+                    .op(OP_RSR);
+        }
+
+        return builder;
+    }
+
+    private void conditional(int depth, int param, int local, int print, int random, int literal) {
+        if (depth == 0) {
+            op(OP_PUSHI, 7).op(OP_PUSHV, param).op(OP_ADD).op(OP_PUSHV, local).op(OP_MOVI);
+            op(OP_PUSHV, literal).op(OP_BE, print);
+            return;
+        }
+
+        op(OP_PUSHI, depth).op(OP_PUSHV, param).op(OP_GT);
+        var bz = code.size();
+        op(OP_BZ, 0);
+
+        conditional(depth - 1, param, local, print, random, literal);
+        var b = code.size();
+        op(OP_B, 0);
+
+        code.patch(bz + 1, code.size());
+        op(OP_PUSHI, depth).op(OP_BE, random).op(OP_PUSHV, local).op(OP_MOVI);
+        code.patch(b + 1, code.size());
+    }
+
+    /**
+     * Adds a symbol. For classes, {@code offset} is the size of the class and for members it is their offset. For
+     * functions it is the return type.
+     *
+     * @return The index of the new symbol.
+     */
+    public int symbol(String name, DaedalusDataType type, int count, int flags, int offset, int parent) {
+        symbols.add(new Sym(name, type, count, flags, offset, parent, file));
+        return symbols.size() - 1;
+    }
+
+    /**
+     * Adds a function and its parameters, which are named {@code PAR0}, {@code PAR1} and so on.
+     *
+     * @return The index of the function. Its parameters directly follow it.
+     */
+    public int function(String name, DaedalusDataType returnType, DaedalusDataType... parameters) {
+        var flags = CONST | (returnType != DaedalusDataType.VOID ? RETURN : 0);
+        var function = symbol(name, DaedalusDataType.FUNCTION, parameters.length, flags, encode(returnType), -1);
+
+        for (var i = 0; i < parameters.length; ++i) {
+            symbol(name + ".PAR" + i, parameters[i], 1, 0, 0, -1);
+        }
+
+        return function;
+    }
+
+    /**
+     * Adds an external function. Its address lies outside the code, like in the original scripts.
+     */
+    public int external(String name, DaedalusDataType returnType, DaedalusDataType... parameters) {
+        var function = function(name, returnType, parameters);
+        symbols.get(function).flags |= EXTERNAL;
+        symbols.get(function).address = EXTERNAL_ADDRESS + function;
+        return function;
+    }
+
+    /**
+     * Adds a string literal generated by the compiler.
+     */
+    public int literal(String value) {
+        var literal = symbol("\u00FF" + (10000 + symbols.size()), DaedalusDataType.STRING, 1, CONST, 0, -1);
+        symbols.get(literal).value = value;
+        return literal;
+    }
+
+    /**
+     * Sets the index of the source file all following symbols are declared in.
+     */
+    public ScriptBuilder file(int index) {
+        file = index;
+        return this;
+    }
+
+    /**
+     * Sets the address of the given symbol to the current end of the code.
+     */
+    public ScriptBuilder setAddress(int symbol) {
+        symbols.get(symbol).address = code.size();
+        return this;
+    }
+
+    public int getAddress(int symbol) {
+        return symbols.get(symbol).address;
+    }
+
+    public ScriptBuilder op(int op) {
+        code.u8(op);
+        return this;
+    }
+
+    public ScriptBuilder op(int op, int data) {
+        code.u8(op).u32(data);
+        return this;
+    }
+
+    public Script build() {
+        try {
+            return DatScript.parse(ByteBuffer.wrap(toByteArray()), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public byte[] toByteArray() {
+        var out = new Bytes();
+        out.u8(50);
+        out.u32(symbols.size());
+
+        for (var i = 0; i < symbols.size(); ++i) {
+            out.u32(i);
+        }
+
+        for (var sym : symbols) {
+            out.u32(1);
+            out.line(sym.name);
+            out.u32(sym.offset);
+            out.u32((sym.count & 0xFFF) | (encode(sym.type) << 12) | (sym.flags << 16));
+            out.u32(sym.file).u32(0).u32(0).u32(0).u32(0);
+
+            if ((sym.flags & MEMBER) == 0) {
+                switch (sym.type) {
+                    case INT -> {
+                        for (var i = 0; i < sym.count; ++i) {
+                            out.u32(0);
+                        }
+                    }
+                    case STRING -> {
+                        for (var i = 0; i < sym.count; ++i) {
+                            out.line(sym.value == null ? "" : sym.value);
+                        }
+                    }
+                    case CLASS -> out.u32(0);
+                    case FUNCTION, PROTOTYPE, INSTANCE -> out.u32(sym.address);
+                    default -> {
+                    }
+                }
+            }
+
+            out.u32(sym.parent);
+        }
+
+        out.u32(code.size());
+        out.raw(code.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The code of the given type in compiled scripts.
+     */
+    private static int encode(DaedalusDataType type) {
+        return switch (type) {
+            case VOID -> 0;
+            case FLOAT -> 1;
+            case INT -> 2;
+            case STRING -> 3;
+            case CLASS -> 4;
+            case FUNCTION -> 5;
+            case PROTOTYPE -> 6;
+            case INSTANCE -> 7;
+            default -> throw new IllegalArgumentException("Not a type of compiled scripts: " + type);
+        };
+    }
+
+    private static final class Sym {
+        private final String name;
+        private final DaedalusDataType type;
+        private final int count;
+        private final int offset;
+        private final int parent;
+        private final int file;
+        private int flags;
+        private int address;
+        private String value;
+
+        private Sym(String name, DaedalusDataType type, int count, int flags, int offset, int parent, int file) {
+            this.name = name;
+            this.type = type;
+            this.count = count;
+            this.flags = flags;
+            this.offset = offset;
+            this.parent = parent;
+            this.file = file;
+        }
+    }
+
+    private static final class Bytes {
+        private byte[] bytes = new byte[256];
+        private int size = 0;
+
+        private int size() {
+            return size;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private Bytes u8(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        private Bytes u32(int value) {
+            return u8(value).u8(value >>> 8).u8(value >>> 16).u8(value >>> 24);
+        }
+
+        private Bytes raw(byte[] value) {
+            for (var b : value) {
+                u8(b);
+            }
+            return this;
+        }
+
+        private Bytes line(String value) {
+            return raw(value.getBytes(StandardCharsets.ISO_8859_1)).u8('\n');
+        }
+
+        private void patch(int at, int value) {
+            bytes[at] = (byte) value;
+            bytes[at + 1] = (byte) (value >>> 8);
+            bytes[at + 2] = (byte) (value >>> 16);
+            bytes[at + 3] = (byte) (value >>> 24);
+        }
+    }
+}
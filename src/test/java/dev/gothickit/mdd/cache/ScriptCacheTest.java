@@ -0,0 +1,97 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.cache;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.script.DatScript;
+import dev.gothickit.mdd.script.ScriptBackend;
+import dev.gothickit.mdd.script.ScriptSnapshot;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void secondLoadIsServedFromTheSnapshot() throws IOException {
+        var path = write("GOTHIC.DAT", functions(5));
+        var cache = new ScriptCache(directory.resolve("cache"));
+
+        var first = cache.load(path, ScriptBackend.JAVA, "Windows-1252");
+        var second = cache.load(path, ScriptBackend.JAVA, "Windows-1252");
+
+        assertTrue(first.script() instanceof DatScript);
+        assertTrue(second.script() instanceof ScriptSnapshot);
+        assertEquals(first.key(), second.key());
+        assertTrue(first.key().contains("-JAVA-"), first.key());
+        assertEquals(5, second.script().getSymbolTable().getSymbolCount());
+    }
+
+    @Test
+    void keysDependOnContentAndEncoding() throws IOException {
+        var a = write("A.DAT", functions(5));
+        var b = write("B.DAT", functions(1));
+        var cache = new ScriptCache(directory.resolve("cache"));
+
+        var key = cache.load(a, ScriptBackend.JAVA, "Windows-1252").key();
+        assertNotEquals(key, cache.load(b, ScriptBackend.JAVA, "Windows-1252").key());
+        assertNotEquals(key, cache.load(a, ScriptBackend.JAVA, "Windows-1250").key());
+
+        // Changing the file in place must not serve the old snapshot.
+        Files.write(a, functions(1));
+        var changed = cache.load(a, ScriptBackend.JAVA, "Windows-1252");
+        assertNotEquals(key, changed.key());
+        assertEquals(1, changed.script().getSymbolTable().getSymbolCount());
+    }
+
+    @Test
+    void brokenSnapshotsAreRebuilt() throws IOException {
+        var path = write("GOTHIC.DAT", functions(5));
+        var cache = new ScriptCache(directory.resolve("cache"));
+        var key = cache.load(path, ScriptBackend.JAVA, "Windows-1252").key();
+
+        Files.write(directory.resolve("cache").resolve(key + ".script"), new byte[]{1, 2, 3});
+        assertTrue(cache.load(path, ScriptBackend.JAVA, "Windows-1252").script() instanceof DatScript);
+        assertTrue(cache.load(path, ScriptBackend.JAVA, "Windows-1252").script() instanceof ScriptSnapshot);
+    }
+
+    @Test
+    void sourcesAreKeyedByOptions() throws IOException {
+        var path = write("GOTHIC.DAT", functions(5));
+        var cache = new ScriptCache(directory.resolve("cache"));
+        var entry = cache.load(path, ScriptBackend.JAVA, "Windows-1252");
+
+        var options = new DecompilerOptions();
+        var sources = cache.getSources(entry, options);
+        sources.put(0, new byte[]{1});
+        sources.save();
+
+        assertArrayEquals(new byte[]{1}, cache.getSources(entry, options).get(0));
+        assertNull(cache.getSources(entry, options.setGenerateElseIf(!options.generateElseIf())).get(0));
+    }
+
+    private static byte[] functions(int count) {
+        var builder = new ScriptBuilder();
+        for (var i = 0; i < count; ++i) {
+            var fn = builder.function("FN_" + i, DaedalusDataType.VOID);
+            builder.setAddress(fn).op(OP_RSR);
+        }
+        return builder.toByteArray();
+    }
+
+    private Path write(String name, byte[] data) throws IOException {
+        var path = directory.resolve(name);
+        Files.write(path, data);
+        return path;
+    }
+}
@@ -0,0 +1,157 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.cache;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.output.HtmlBuilder;
+import dev.gothickit.mdd.output.SourceRecorder;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceCacheTest {
+    private static final DecompilerOptions OPTIONS = new DecompilerOptions();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void inheritOnlyTakesOverUnchangedDeclarations() {
+        var previousScript = build(false, 5000);
+        var previous = record(previousScript, directory.resolve("previous.sources"));
+
+        var script = build(true, 6000);
+        var sources = SourceCache.open(directory.resolve("current.sources"));
+
+        assertEquals(2, sources.inherit(script, previousScript, previous, OPTIONS));
+
+        var table = script.getSymbolTable();
+        assertNull(sources.get(table.getIndexByName("UNRELATED")));
+        assertNull(sources.get(table.getIndexByName("B")));
+
+        // The taken over sources reference the symbols of the new build, which moved by one.
+        var decompiler = new Decompiler(script);
+        for (var name : new String[]{"A", "C"}) {
+            var recording = sources.get(table.getIndexByName(name));
+            assertNotNull(recording, name);
+            assertEquals(render(decompiler, table.getIndexByName(name)), replay(recording), name);
+        }
+    }
+
+    @Test
+    void inheritKeepsExistingSources() {
+        var previousScript = build(false, 5000);
+        var previous = record(previousScript, directory.resolve("previous.sources"));
+
+        var script = build(false, 5000);
+        var sources = SourceCache.open(directory.resolve("current.sources"));
+        var existing = new SourceRecorder().text("existing").toByteArray();
+        sources.put(script.getSymbolTable().getIndexByName("A"), existing);
+
+        assertEquals(2, sources.inherit(script, previousScript, previous, OPTIONS));
+        assertSame(existing, sources.get(script.getSymbolTable().getIndexByName("A")));
+    }
+
+    @Test
+    void sourcesSurviveSavingAndOpening() throws IOException {
+        var path = directory.resolve("saved.sources");
+        var sources = record(build(false, 5000), path);
+        sources.save();
+
+        var opened = SourceCache.open(path);
+        for (var i = 0; i < 16; ++i) {
+            if (sources.get(i) == null) {
+                assertNull(opened.get(i));
+            } else {
+                assertArrayEquals(sources.get(i), opened.get(i));
+            }
+        }
+    }
+
+    @Test
+    void failedSavesAreRetried() throws IOException {
+        // A regular file in place of the cache directory makes saving fail.
+        var blocker = directory.resolve("blocked");
+        Files.writeString(blocker, "");
+
+        var path = blocker.resolve("retried.sources");
+        var sources = SourceCache.open(path);
+        sources.put(0, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, sources::save);
+
+        Files.delete(blocker);
+        sources.save();
+        assertArrayEquals(new byte[]{1, 2, 3}, SourceCache.open(path).get(0));
+    }
+
+    @Test
+    void brokenCacheFilesAreIgnored() throws IOException {
+        var path = directory.resolve("broken.sources");
+        Files.write(path, new byte[]{1, 2, 3});
+
+        var sources = SourceCache.open(path);
+        assertNull(sources.get(0));
+    }
+
+    /**
+     * Builds a script with a function A, a function B which calls A with the given constant and a function C which
+     * calls B. Optionally, an unrelated function is added first to shift all indices and addresses.
+     */
+    private static Script build(boolean inserted, int constant) {
+        var builder = new ScriptBuilder();
+        if (inserted) {
+            var unrelated = builder.function("UNRELATED", DaedalusDataType.VOID);
+            builder.setAddress(unrelated).op(OP_RSR);
+        }
+
+        var a = builder.function("A", DaedalusDataType.INT, DaedalusDataType.INT);
+        builder.setAddress(a).op(OP_PUSHV, a + 1).op(OP_MOVI)
+                .op(OP_PUSHI, 1000).op(OP_PUSHV, a + 1).op(OP_ADD).op(OP_RSR);
+
+        var b = builder.function("B", DaedalusDataType.INT);
+        builder.setAddress(b).op(OP_PUSHI, constant).op(OP_BL, builder.getAddress(a)).op(OP_RSR);
+
+        var c = builder.function("C", DaedalusDataType.VOID);
+        builder.setAddress(c).op(OP_BL, builder.getAddress(b)).op(OP_RSR);
+
+        return builder.build();
+    }
+
+    private static SourceCache record(Script script, Path path) {
+        var sources = SourceCache.open(path);
+        var decompiler = new Decompiler(script);
+
+        for (var index : decompiler.getTopLevelIndices()) {
+            var decl = decompiler.decompileDecl(index);
+            decompiler.decompileCode(decl);
+            sources.put(index, new SourceRecorder().syntax(decl).text(";").toByteArray());
+        }
+
+        return sources;
+    }
+
+    private static String render(Decompiler decompiler, int index) {
+        var decl = decompiler.decompileDecl(index);
+        decompiler.decompileCode(decl);
+
+        var html = new HtmlBuilder();
+        html.syntax(decl).text(";");
+        return html.toString();
+    }
+
+    private static String replay(byte[] recording) {
+        var html = new HtmlBuilder();
+        SourceRecorder.replay(recording, html);
+        return html.toString();
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.decompiler;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.cst.Block;
+import dev.gothickit.mdd.cst.Decl;
+import dev.gothickit.mdd.cst.FunctionDecl;
+import dev.gothickit.mdd.output.TextBuilder;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecompilerTest {
+    private static final DecompilerOptions WITH_LITERALS = new DecompilerOptions();
+    private static final DecompilerOptions WITHOUT_LITERALS = WITH_LITERALS.setGenerateStringLiterals(false);
+    private static final DecompilerOptions WITHOUT_ELSE_IF = WITH_LITERALS.setGenerateElseIf(false);
+
+    private final Script script = ScriptBuilder.generate(40, 20, 3);
+
+    @Test
+    void repeatedCallsReturnTheCachedBody() {
+        var decompiler = new Decompiler(script);
+        var decl = function(decompiler, "FUNC_7");
+
+        var body = decompiler.decompileCode(decl);
+        assertNotNull(body);
+        assertSame(body, decl.getBody());
+        assertSame(body, decompiler.decompileCode(decl));
+    }
+
+    @Test
+    void changingOptionsChangesTheBody() {
+        var decompiler = new Decompiler(script);
+        var decl = function(decompiler, "FUNC_7");
+
+        var withLiterals = render(decompiler, decl);
+        assertTrue(withLiterals.contains("\"Hello, World!\""), withLiterals);
+
+        decompiler.setOptions(WITHOUT_LITERALS);
+        var withoutLiterals = render(decompiler, decl);
+        assertFalse(withoutLiterals.contains("\"Hello, World!\""), withoutLiterals);
+        assertEquals(render(fresh(WITHOUT_LITERALS), "FUNC_7"), withoutLiterals);
+    }
+
+    @Test
+    void bodiesAreCachedPerOptions() {
+        var decompiler = new Decompiler(script);
+        var decl = function(decompiler, "FUNC_7");
+
+        var first = decompiler.decompileCode(decl);
+        decompiler.setOptions(WITHOUT_LITERALS);
+        var second = decompiler.decompileCode(decl);
+        decompiler.setOptions(WITHOUT_ELSE_IF);
+        var third = decompiler.decompileCode(decl);
+
+        assertNotSame(first, second);
+        assertNotSame(first, third);
+
+        // Switching back is a cache hit and sets the matching body on the declaration again.
+        decompiler.setOptions(WITH_LITERALS);
+        assertSame(first, decompiler.decompileCode(decl));
+        assertSame(first, decl.getBody());
+
+        decompiler.setOptions(WITHOUT_ELSE_IF);
+        assertSame(third, decompiler.decompileCode(decl));
+        assertEquals(render(fresh(WITHOUT_ELSE_IF), "FUNC_7"), render(decompiler, decl));
+    }
+
+    @Test
+    void declarationsAreInternedAcrossThreads() throws Exception {
+        var decompiler = new Decompiler(script);
+        var count = script.getSymbols().size();
+
+        var results = runConcurrently(8, () -> {
+            var decls = new Decl[count];
+            for (var i = count - 1; i >= 0; --i) {
+                decls[i] = decompiler.decompileDecl(i);
+            }
+            return decls;
+        });
+
+        for (var decls : results) {
+            for (var i = 0; i < count; ++i) {
+                assertSame(results.get(0)[i], decls[i], script.getSymbolByIndex(i).getName());
+            }
+        }
+    }
+
+    @Test
+    void concurrentDecompilationMatchesSequentialDecompilation() throws Exception {
+        var decompiler = new Decompiler(script);
+        var decls = decompiler.getTopLevelSymbols();
+
+        var results = runConcurrently(8, () -> {
+            var bodies = new Block[decls.size()];
+            for (var i = 0; i < decls.size(); ++i) {
+                bodies[i] = decompiler.decompileCode(decls.get(i));
+            }
+            return bodies;
+        });
+
+        var sequential = fresh(WITH_LITERALS);
+        for (var i = 0; i < decls.size(); ++i) {
+            // Every thread must see the one body which was published for the declaration.
+            for (var bodies : results) {
+                assertSame(results.get(0)[i], bodies[i], decls.get(i).getName());
+            }
+
+            var text = new TextBuilder();
+            text.syntax(decls.get(i));
+            var expected = new TextBuilder();
+            var decl = sequential.decompileDecl(decls.get(i).getSymbol().getIndex());
+            sequential.decompileCode(decl);
+            expected.syntax(decl);
+            assertEquals(expected.toString(), text.toString());
+        }
+    }
+
+    @Test
+    void decompileAllMatchesSequentialDecompilation() throws Exception {
+        var decompiler = new Decompiler(script);
+        decompiler.decompileAll(4);
+
+        var sequential = fresh(WITH_LITERALS);
+        for (var decl : decompiler.getTopLevelSymbols()) {
+            var text = new TextBuilder();
+            text.syntax(decl);
+            assertEquals(render(sequential, sequential.decompileDecl(decl.getSymbol().getIndex())), text.toString());
+        }
+    }
+
+    @Test
+    void decompileAllReportsFailuresAfterDecompilingEverythingElse() {
+        var builder = new ScriptBuilder();
+        var broken = builder.function("BROKEN", DaedalusDataType.VOID);
+        builder.setAddress(broken).op(ScriptBuilder.OP_MOVI).op(ScriptBuilder.OP_RSR);
+        var working = builder.function("WORKING", DaedalusDataType.INT);
+        builder.setAddress(working).op(ScriptBuilder.OP_PUSHI, 1).op(ScriptBuilder.OP_RSR);
+
+        var decompiler = new Decompiler(builder.build());
+        var failure = assertThrows(IllegalStateException.class, () -> decompiler.decompileAll(2));
+        assertNotNull(failure.getCause());
+        assertNotNull(function(decompiler, "WORKING").getBody());
+    }
+
+    private Decompiler fresh(DecompilerOptions options) {
+        var decompiler = new Decompiler(script);
+        decompiler.setOptions(options);
+        return decompiler;
+    }
+
+    private static FunctionDecl function(Decompiler decompiler, String name) {
+        for (var decl : decompiler.getTopLevelSymbols()) {
+            if (decl.getName().equals(name)) {
+                return (FunctionDecl) decl;
+            }
+        }
+
+        throw new AssertionError("No such function: " + name);
+    }
+
+    private static String render(Decompiler decompiler, String name) {
+        return render(decompiler, function(decompiler, name));
+    }
+
+    private static String render(Decompiler decompiler, Decl decl) {
+        decompiler.decompileCode(decl);
+
+        var text = new TextBuilder();
+        text.syntax(decl);
+        return text.toString();
+    }
+
+    private static <T> ArrayList<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            var futures = new ArrayList<Future<T>>();
+            for (var i = 0; i < threads; ++i) {
+                futures.add(executor.submit(task));
+            }
+
+            var results = new ArrayList<T>();
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintsTest {
+    private static final DecompilerOptions OPTIONS = new DecompilerOptions();
+
+    @Test
+    void identicalScriptsHaveIdenticalFingerprints() {
+        var a = Fingerprints.of(ScriptBuilder.generate(20, 10, 2), OPTIONS);
+        var b = Fingerprints.of(ScriptBuilder.generate(20, 10, 2), OPTIONS);
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    void onlySymbolsWithCodeHaveFingerprints() {
+        var script = ScriptBuilder.generate(2, 2, 1);
+        var table = script.getSymbolTable();
+        var fingerprints = Fingerprints.of(script, OPTIONS);
+
+        assertEquals(0, fingerprints[table.getIndexByName("C_NPC")]);
+        assertEquals(0, fingerprints[table.getIndexByName("PRINT")]);
+        assertEquals(0, fingerprints[table.getIndexByName("FUNC_0.X")]);
+        assertNotEquals(0, fingerprints[table.getIndexByName("NPC_DEFAULT")]);
+        assertNotEquals(0, fingerprints[table.getIndexByName("FUNC_0")]);
+        assertNotEquals(0, fingerprints[table.getIndexByName("INST_0")]);
+    }
+
+    @Test
+    void fingerprintsDoNotDependOnIndicesOrAddresses() {
+        var a = build(false, DaedalusDataType.INT, 5000);
+        var b = build(true, DaedalusDataType.INT, 5000);
+
+        assertEquals(get(a, "CALLEE"), get(b, "CALLEE"));
+        assertEquals(get(a, "CALLER"), get(b, "CALLER"));
+    }
+
+    @Test
+    void changedCodeChangesFingerprint() {
+        var a = build(false, DaedalusDataType.INT, 1);
+        var b = build(false, DaedalusDataType.INT, 2);
+
+        assertEquals(get(a, "CALLEE"), get(b, "CALLEE"));
+        assertNotEquals(get(a, "CALLER"), get(b, "CALLER"));
+    }
+
+    @Test
+    void callsDependOnParametersOfCalledFunction() {
+        // The argument is the index of CALLEE, which is resolved to a function reference once the parameter is a
+        // function, so the caller decompiles differently even though its own code did not change.
+        var a = build(false, DaedalusDataType.INT, 0);
+        var b = build(false, DaedalusDataType.FUNCTION, 0);
+
+        assertNotEquals(get(a, "CALLEE"), get(b, "CALLEE"));
+        assertNotEquals(get(a, "CALLER"), get(b, "CALLER"));
+    }
+
+    /**
+     * Builds a script with a function CALLEE taking one parameter and a function CALLER calling it with the given
+     * integer argument. Optionally, an unrelated function is added first to shift all indices and addresses.
+     */
+    private static Script build(boolean shifted, DaedalusDataType parameter, int argument) {
+        var builder = new ScriptBuilder();
+        if (shifted) {
+            var unrelated = builder.function("UNRELATED", DaedalusDataType.VOID);
+            builder.setAddress(unrelated).op(OP_RSR);
+        }
+
+        var callee = builder.function("CALLEE", DaedalusDataType.VOID, parameter);
+        builder.setAddress(callee).op(OP_PUSHV, callee + 1).op(OP_MOVI).op(OP_RSR);
+
+        var caller = builder.function("CALLER", DaedalusDataType.VOID);
+        builder.setAddress(caller).op(OP_PUSHI, argument).op(OP_BL, builder.getAddress(callee)).op(OP_RSR);
+
+        return builder.build();
+    }
+
+    private static long get(Script script, String name) {
+        return Fingerprints.of(script, OPTIONS)[script.getSymbolTable().getIndexByName(name)];
+    }
+}
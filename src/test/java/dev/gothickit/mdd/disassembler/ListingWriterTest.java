@@ -0,0 +1,122 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.disassembler;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingWriterTest {
+    private final Script script = ScriptBuilder.generate(5, 3, 2);
+
+    @Test
+    void textListingsLabelEverySymbol() throws IOException {
+        var out = new StringWriter();
+        var count = new ListingWriter(script, ListingWriter.Format.TEXT).write(out);
+        var disassembly = Disassembly.ofSegment(script);
+        assertEquals(disassembly.getInstructionCount(), count);
+
+        var lines = out.toString().split("\n", -1);
+        var instructions = 0;
+        var labels = new ArrayList<String>();
+
+        for (var i = 0; i < lines.length - 1; ++i) {
+            if (lines[i].isEmpty()) {
+                labels.add(lines[++i]);
+                continue;
+            }
+
+            assertTrue(lines[i].startsWith(disassembly.formatAddress(instructions)), lines[i]);
+            assertTrue(lines[i].contains(disassembly.formatInstruction(instructions)), lines[i]);
+            instructions += 1;
+        }
+
+        assertEquals("", lines[lines.length - 1]);
+        assertEquals(count, instructions);
+        assertEquals(List.of("NPC_DEFAULT:", "FUNC_0:", "FUNC_1:", "FUNC_2:", "FUNC_3:", "FUNC_4:", "INST_0:",
+                "INST_1:", "INST_2:"), labels);
+    }
+
+    @Test
+    void csvListingsHaveOneRowPerInstruction() throws IOException {
+        var out = new StringWriter();
+        var count = new ListingWriter(script, ListingWriter.Format.CSV).write(out);
+        var disassembly = Disassembly.ofSegment(script);
+        assertEquals(disassembly.getInstructionCount(), count);
+
+        var lines = out.toString().split("\n");
+        assertEquals("address,symbol,bytes,instruction,comment", lines[0]);
+        assertEquals(count + 1, lines.length);
+
+        for (var i = 0; i < count; ++i) {
+            var fields = parse(lines[i + 1]);
+            assertEquals(5, fields.size(), lines[i + 1]);
+            assertEquals(disassembly.formatBytes(i), fields.get(2));
+            assertEquals(disassembly.formatInstruction(i), fields.get(3));
+            assertEquals(disassembly.formatComment(i), fields.get(4));
+        }
+
+        assertEquals("NPC_DEFAULT", parse(lines[1]).get(1));
+        assertEquals("INST_2", parse(lines[count]).get(1));
+    }
+
+    @Test
+    void csvValuesAreQuotedIfNeeded() throws IOException {
+        var builder = new ScriptBuilder();
+        var callee = builder.function("A,\"B\"", DaedalusDataType.VOID);
+        builder.setAddress(callee).op(OP_RSR);
+        var caller = builder.function("C", DaedalusDataType.VOID);
+        builder.setAddress(caller).op(OP_BL, builder.getAddress(callee)).op(OP_RSR);
+
+        var out = new StringWriter();
+        new ListingWriter(builder.build(), ListingWriter.Format.CSV).write(out);
+
+        var lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].startsWith("0,\"A,\"\"B\"\"\","), lines[1]);
+        assertEquals(List.of("1", "C", parse(lines[2]).get(2), parse(lines[2]).get(3), "A,\"B\""),
+                parse(lines[2]));
+    }
+
+    /**
+     * Splits a CSV row into its fields, unquoting them.
+     */
+    private static List<String> parse(String row) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+
+        for (var i = 0; i < row.length(); ++i) {
+            var c = row.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i += 1;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,180 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.cache.ScriptCache;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.decompiler.DecompilerOptions;
+import dev.gothickit.mdd.output.TextBuilder;
+import dev.gothickit.mdd.script.Script;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportPipelineTest {
+    private final Script script = ScriptBuilder.generate(30, 20, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void exportsEverySymbolInOrder() throws Exception {
+        var decompiler = new Decompiler(script);
+        var pipeline = new ExportPipeline(decompiler, 4);
+        var written = new AtomicInteger();
+        pipeline.setListener(stats -> written.incrementAndGet());
+
+        var stats = pipeline.run(directory);
+        assertEquals(1, pipeline.getFileCount());
+        assertEquals(1, written.get());
+        assertEquals(decompiler.getTopLevelIndices().length, stats.symbols());
+        assertEquals(0, stats.files().get(0).fileIndex());
+
+        assertEquals(render(new Decompiler(script)), read(directory.resolve("0.d")));
+    }
+
+    @Test
+    void cachedSourcesGiveTheSameOutput() throws Exception {
+        var cache = new ScriptCache(directory.resolve("cache"));
+        var sources = cache.getSources(new ScriptCache.Entry("test", script), new DecompilerOptions());
+
+        var first = new ExportPipeline(new Decompiler(script), 2);
+        first.setSources(sources);
+        first.run(directory.resolve("first"));
+
+        var second = new ExportPipeline(new Decompiler(script), 2);
+        second.setSources(sources);
+        second.run(directory.resolve("second"));
+
+        var expected = render(new Decompiler(script));
+        assertEquals(expected, read(directory.resolve("first").resolve("0.d")));
+        assertEquals(expected, read(directory.resolve("second").resolve("0.d")));
+    }
+
+    @Test
+    void cancelledExportsThrow() {
+        var pipeline = new ExportPipeline(new Decompiler(script), 2);
+        pipeline.cancel();
+
+        assertThrows(CancellationException.class, () -> pipeline.run(directory));
+        assertThrows(IllegalStateException.class, () -> pipeline.run(directory));
+    }
+
+    @Test
+    void cancellingDuringAWriteThrowsCancellation() {
+        var pipeline = new ExportPipeline(new Decompiler(script), 2);
+        pipeline.setCharset(new HookedCharset(pipeline::cancel, true));
+
+        assertThrows(CancellationException.class, () -> pipeline.run(directory));
+    }
+
+    @Test
+    void changingOptionsWhileWritingDoesNotChangeTheOutput() throws Exception {
+        var decompiler = new Decompiler(script);
+        var pipeline = new ExportPipeline(decompiler, 1);
+        pipeline.setCharset(new HookedCharset(() -> {
+            // Like the GUI showing declarations with other options while the export runs.
+            decompiler.setOptions(new DecompilerOptions().setGenerateStringLiterals(false));
+            for (var decl : decompiler.getTopLevelSymbols()) {
+                decompiler.decompileCode(decl);
+            }
+        }, false));
+
+        pipeline.run(directory);
+        assertEquals(render(new Decompiler(script)), read(directory.resolve("0.d")));
+    }
+
+    @Test
+    void writeFailuresAreRethrown() throws IOException {
+        // A directory in place of the output file cannot be opened for writing.
+        Files.createDirectories(directory.resolve("0.d"));
+
+        var pipeline = new ExportPipeline(new Decompiler(script), 2);
+        assertThrows(IOException.class, () -> pipeline.run(directory));
+    }
+
+    private static String render(Decompiler decompiler) {
+        var text = new TextBuilder();
+
+        for (var decl : decompiler.getTopLevelSymbols()) {
+            decompiler.decompileCode(decl);
+            text.commentMultiline(decompiler.formatSymbolInfo(decl)).newline();
+            text.syntax(decl).text(";").newline().newline();
+        }
+
+        return text.toString();
+    }
+
+    private static String read(Path path) throws IOException {
+        return Files.readString(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An ASCII character set whose encoder runs the given action in the middle of writing the first file. Optionally,
+     * it then fails the write, like writes to an interruptible channel fail once the writing thread is interrupted.
+     */
+    private static final class HookedCharset extends Charset {
+        private final AtomicBoolean used = new AtomicBoolean();
+        private final Runnable action;
+        private final boolean fail;
+
+        HookedCharset(Runnable action, boolean fail) {
+            super("x-mdd-hooked", null);
+            this.action = action;
+            this.fail = fail;
+        }
+
+        @Override
+        public boolean contains(Charset cs) {
+            return false;
+        }
+
+        @Override
+        public CharsetDecoder newDecoder() {
+            return StandardCharsets.US_ASCII.newDecoder();
+        }
+
+        @Override
+        public CharsetEncoder newEncoder() {
+            return new CharsetEncoder(this, 1, 1) {
+                @Override
+                protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+                    if (in.hasRemaining() && used.compareAndSet(false, true)) {
+                        action.run();
+
+                        if (fail) {
+                            return CoderResult.unmappableForLength(1);
+                        }
+                    }
+
+                    while (in.hasRemaining()) {
+                        if (!out.hasRemaining()) {
+                            return CoderResult.OVERFLOW;
+                        }
+
+                        var c = in.get();
+                        out.put((byte) (c < 0x80 ? c : '?'));
+                    }
+
+                    return CoderResult.UNDERFLOW;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.export;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.script.Script;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptExporterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void symbolsAreGroupedByFile() throws Exception {
+        var stats = new ScriptExporter(build(), 2).export(directory);
+
+        var first = Files.readString(directory.resolve("0.d"));
+        var second = Files.readString(directory.resolve("1.d"));
+        assertTrue(first.indexOf("FN_A()") >= 0, first);
+        assertTrue(first.indexOf("FN_A()") < first.indexOf("FN_C()"), first);
+        assertFalse(first.contains("FN_B"), first);
+        assertTrue(second.contains("FN_B()"), second);
+
+        assertEquals(3, stats.symbols());
+        assertEquals(2, stats.files().size());
+        assertEquals(0, stats.files().get(0).fileIndex());
+        assertEquals(2, stats.files().get(0).symbols());
+        assertEquals(1, stats.files().get(1).fileIndex());
+        assertEquals(1, stats.files().get(1).symbols());
+    }
+
+    @Test
+    void outputDoesNotDependOnThreads() throws Exception {
+        var script = ScriptBuilder.generate(30, 20, 2);
+        new ScriptExporter(script, 1).export(directory.resolve("single"));
+        new ScriptExporter(script, 4).export(directory.resolve("multi"));
+
+        assertEquals(read(directory.resolve("single")), read(directory.resolve("multi")));
+    }
+
+    /**
+     * Builds a script with three functions, where the first and last one are declared in file 0 and the second one
+     * in file 1.
+     */
+    private static Script build() {
+        var builder = new ScriptBuilder();
+        var names = new String[]{"FN_A", "FN_B", "FN_C"};
+
+        for (var i = 0; i < names.length; ++i) {
+            builder.file(i % 2);
+            var function = builder.function(names[i], DaedalusDataType.VOID);
+            builder.setAddress(function).op(OP_RSR);
+        }
+
+        return builder.build();
+    }
+
+    private static String read(Path directory) throws IOException {
+        return Files.readString(directory.resolve("0.d"));
+    }
+}
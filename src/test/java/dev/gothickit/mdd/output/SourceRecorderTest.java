@@ -0,0 +1,75 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.output;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceRecorderTest {
+    @Test
+    void replayMatchesDirectRendering() {
+        var decompiler = new Decompiler(ScriptBuilder.generate(20, 10, 3));
+
+        for (var decl : decompiler.getTopLevelSymbols()) {
+            decompiler.decompileCode(decl);
+            var recording = new SourceRecorder().syntax(decl).text(";").toByteArray();
+
+            var text = new TextBuilder();
+            text.syntax(decl).text(";");
+            var replayedText = new TextBuilder();
+            SourceRecorder.replay(recording, replayedText);
+            assertEquals(text.toString(), replayedText.toString(), decl.getName());
+
+            var html = new HtmlBuilder();
+            html.syntax(decl).text(";");
+            var replayedHtml = new HtmlBuilder();
+            SourceRecorder.replay(recording, replayedHtml);
+            assertEquals(html.toString(), replayedHtml.toString(), decl.getName());
+        }
+    }
+
+    @Test
+    void replayMatchesDirectRenderingOfEveryCall() {
+        Consumer<SourceBuilder> build = b -> b.commentMultiline("Name: FOO", "  Const: true")
+                .newline()
+                .comment("inline")
+                .keyword("func").space().clazz("C_NPC").space()
+                .reference("FOO", 3).text("(")
+                .number(-7).text(", ").number(1.5f).text(", ").string("Grüße, \"World\"")
+                .text(")").space()
+                .indented(inner -> inner.keyword("return").newline().indented(b2 -> b2.text("<nested>")))
+                .newline();
+
+        var direct = new TextBuilder();
+        build.accept(direct);
+
+        var recorder = new SourceRecorder();
+        build.accept(recorder);
+        var replayed = new TextBuilder();
+        SourceRecorder.replay(recorder.toByteArray(), replayed);
+
+        assertEquals(direct.toString(), replayed.toString());
+        assertEquals(direct.toString(), recorder.toString());
+    }
+
+    @Test
+    void replayMapsReferences() {
+        var recording = new SourceRecorder().reference("FOO", 3).toByteArray();
+
+        var html = new HtmlBuilder();
+        SourceRecorder.replay(recording, html, index -> index + 10);
+        assertTrue(html.toString().contains("href=\"#13\">FOO</a>"));
+    }
+
+    @Test
+    void replayRejectsInvalidRecordings() {
+        assertThrows(UncheckedIOException.class, () -> SourceRecorder.replay(new byte[]{42, 0}, new TextBuilder()));
+        assertThrows(UncheckedIOException.class, () -> SourceRecorder.replay(new byte[]{9, 0, 0}, new TextBuilder()));
+    }
+}
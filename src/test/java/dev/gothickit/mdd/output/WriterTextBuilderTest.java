@@ -0,0 +1,46 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.output;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriterTextBuilderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void outputMatchesTextBuilder() throws IOException {
+        var decompiler = new Decompiler(ScriptBuilder.generate(20, 10, 3));
+        var path = directory.resolve("0.d");
+        var text = new TextBuilder();
+
+        try (var writer = new WriterTextBuilder(path, StandardCharsets.UTF_8)) {
+            for (var decl : decompiler.getTopLevelSymbols()) {
+                decompiler.decompileCode(decl);
+                text.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+                writer.commentMultiline(decompiler.formatSymbolInfo(decl)).newline().syntax(decl).text(";").newline();
+            }
+        }
+
+        assertEquals(text.toString(), Files.readString(path, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void toStringDescribesTheTarget() throws IOException {
+        var path = directory.resolve("0.d");
+
+        try (var writer = new WriterTextBuilder(path, StandardCharsets.UTF_8)) {
+            assertTrue(writer.toString().contains(path.toString()), writer.toString());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressIndexTest {
+    @Test
+    void entriesAreFoundRegardlessOfOrder() {
+        var index = new AddressIndex(new long[]{entry(300, 3), entry(100, 1), entry(200, 2), entry(0, 7)}, 4);
+
+        assertEquals(7, index.get(0));
+        assertEquals(1, index.get(100));
+        assertEquals(2, index.get(200));
+        assertEquals(3, index.get(300));
+    }
+
+    @Test
+    void missingAddressesAreNotFound() {
+        var index = new AddressIndex(new long[]{entry(100, 1), entry(200, 2), entry(999, 9)}, 2);
+
+        assertEquals(-1, index.get(-1));
+        assertEquals(-1, index.get(0));
+        assertEquals(-1, index.get(150));
+        assertEquals(-1, index.get(300));
+        assertEquals(-1, index.get(999));
+        assertEquals(-1, new AddressIndex(new long[0], 0).get(0));
+    }
+
+    @Test
+    void lowestIndexWinsForDuplicateAddresses() {
+        var index = new AddressIndex(new long[]{entry(100, 5), entry(100, 2), entry(100, 8), entry(200, 4)}, 4);
+
+        assertEquals(2, index.get(100));
+        assertEquals(4, index.get(200));
+    }
+
+    @Test
+    void symbolTableIndexesCodeSymbols() {
+        var builder = new ScriptBuilder();
+        var external = builder.external("PRINT", DaedalusDataType.VOID, DaedalusDataType.STRING);
+        builder.symbol("FN_VAR", DaedalusDataType.FUNCTION, 0, 0, 0, -1);
+        var function = builder.function("FN", DaedalusDataType.VOID);
+        builder.setAddress(function).op(OP_RSR);
+        var instance = builder.symbol("INST", DaedalusDataType.INSTANCE, 1, CONST, 0, -1);
+        builder.setAddress(instance).op(OP_RSR);
+
+        var table = builder.build().getSymbolTable();
+        // The function variable also has address 0, but only constant functions have code.
+        assertEquals(0, builder.getAddress(function));
+        assertEquals(function, table.getIndexByAddress(builder.getAddress(function)));
+        assertEquals(instance, table.getIndexByAddress(builder.getAddress(instance)));
+        assertEquals(-1, table.getIndexByAddress(builder.getAddress(external)));
+    }
+
+    private static long entry(int address, int index) {
+        return ((long) address << 32) | index;
+    }
+}
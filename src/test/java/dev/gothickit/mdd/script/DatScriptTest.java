@@ -0,0 +1,139 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.zenkit.capi.ZenKit;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import dev.gothickit.zenkit.daedalus.DaedalusOpcode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatScriptTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void symbolsAreParsedAsWritten() {
+        var builder = new ScriptBuilder();
+        var clazz = builder.symbol("C_ITEM", DaedalusDataType.CLASS, 1, 0, 400, -1);
+        var member = builder.symbol("C_ITEM.VALUE", DaedalusDataType.INT, 1, MEMBER, 16, clazz);
+        var external = builder.external("PRINT", DaedalusDataType.VOID, DaedalusDataType.STRING);
+        var literal = builder.literal("Grüße");
+        builder.file(3);
+        var function = builder.function("FN", DaedalusDataType.INT, DaedalusDataType.INT, DaedalusDataType.STRING);
+        builder.setAddress(function).op(OP_PUSHV, literal).op(OP_BE, external).op(OP_PUSHI, 1).op(OP_RSR);
+
+        var script = builder.build();
+        assertEquals(8, script.getSymbols().size());
+
+        var c = script.getSymbolByIndex(clazz);
+        assertNotNull(c);
+        assertEquals("C_ITEM", c.getName());
+        assertEquals(DaedalusDataType.CLASS, c.getType());
+        assertEquals(400, c.getClassSize());
+
+        var m = script.getSymbolByIndex(member);
+        assertNotNull(m);
+        assertTrue(m.isMember());
+        assertEquals(clazz, m.getParent());
+        assertEquals(16, m.getOffsetAsMember());
+
+        var e = script.getSymbolByIndex(external);
+        assertNotNull(e);
+        assertTrue(e.isExternal());
+        assertTrue(e.isConst());
+        assertEquals(1, e.getSize());
+
+        var l = script.getSymbolByIndex(literal);
+        assertNotNull(l);
+        assertEquals("Grüße", l.getString(0));
+
+        var f = script.getSymbolByIndex(function);
+        assertNotNull(f);
+        assertEquals("FN", f.getName());
+        assertEquals(DaedalusDataType.FUNCTION, f.getType());
+        assertEquals(DaedalusDataType.INT, f.getReturnType());
+        assertEquals(2, f.getSize());
+        assertEquals(3, f.getFileIndex());
+        assertEquals(builder.getAddress(function), f.getAddress());
+        assertEquals(function, script.getSymbolByAddress(f.getAddress()).getIndex());
+        assertEquals("FN.PAR1", script.getSymbolByIndex(function + 2).getName());
+        assertEquals(DaedalusDataType.STRING, script.getSymbolByIndex(function + 2).getType());
+
+        assertNull(script.getSymbolByIndex(-1));
+        assertNull(script.getSymbolByIndex(8));
+    }
+
+    @Test
+    void codeIsParsedAsWritten() {
+        var builder = new ScriptBuilder();
+        var function = builder.function("FN", DaedalusDataType.VOID);
+        builder.setAddress(function).op(OP_PUSHI, -5).op(OP_PUSHV, function).op(OP_MOVI).op(OP_RSR);
+
+        var code = builder.build().getCode();
+        assertEquals(12, code.getLength());
+
+        assertEquals(DaedalusOpcode.PUSHI, code.getOpcode(0));
+        assertEquals(-5, code.getData(0));
+        assertEquals(5, code.getSize(0));
+        assertEquals(DaedalusOpcode.PUSHV, code.getOpcode(5));
+        assertEquals(function, code.getData(5));
+        assertEquals(DaedalusOpcode.MOVI, code.getOpcode(10));
+        assertEquals(1, code.getSize(10));
+        assertEquals(DaedalusOpcode.RSR, code.getOpcode(11));
+        assertFalse(code.contains(12));
+    }
+
+    @Test
+    void symbolsMatchZenKit() throws IOException {
+        var path = directory.resolve("GOTHIC.DAT");
+        Files.write(path, ScriptBuilder.fixture(20, 10, 2).toByteArray());
+
+        ZenKit.load("Windows-1252");
+        var expected = ZenKitScript.load(path);
+        var actual = DatScript.load(path, Charset.forName("Windows-1252"));
+        assertEquals(expected.getSymbols().size(), actual.getSymbols().size());
+
+        for (var i = 0; i < expected.getSymbols().size(); ++i) {
+            var a = expected.getSymbolByIndex(i);
+            var b = actual.getSymbolByIndex(i);
+            assertNotNull(a);
+            assertNotNull(b);
+
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getIndex(), b.getIndex(), a.getName());
+            assertEquals(a.getType(), b.getType(), a.getName());
+            assertEquals(a.getReturnType(), b.getReturnType(), a.getName());
+            assertEquals(a.getSize(), b.getSize(), a.getName());
+            assertEquals(a.getAddress(), b.getAddress(), a.getName());
+            assertEquals(a.getParent(), b.getParent(), a.getName());
+            assertEquals(a.isConst(), b.isConst(), a.getName());
+            assertEquals(a.isMember(), b.isMember(), a.getName());
+            assertEquals(a.isExternal(), b.isExternal(), a.getName());
+            assertEquals(a.isMerged(), b.isMerged(), a.getName());
+            assertEquals(a.isGenerated(), b.isGenerated(), a.getName());
+            assertEquals(a.getFileIndex(), b.getFileIndex(), a.getName());
+
+            if (a.isMember()) {
+                assertEquals(a.getOffsetAsMember(), b.getOffsetAsMember(), a.getName());
+            } else if (a.getType() == DaedalusDataType.STRING) {
+                for (var j = 0; j < a.getSize(); ++j) {
+                    assertEquals(a.getString(j), b.getString(j), a.getName());
+                }
+            } else if (a.getType() == DaedalusDataType.INT) {
+                for (var j = 0; j < a.getSize(); ++j) {
+                    assertEquals(a.getInt(j), b.getInt(j), a.getName());
+                }
+            }
+        }
+    }
+}
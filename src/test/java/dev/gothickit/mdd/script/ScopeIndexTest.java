@@ -0,0 +1,53 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopeIndexTest {
+    private final SymbolTable table = ScriptBuilder.generate(3, 2, 1).getSymbolTable();
+    private final ScopeIndex scopes = table.getScopes();
+
+    @Test
+    void classesContainTheirMembers() {
+        var npc = table.getIndexByName("C_NPC");
+
+        assertEquals(npc + 1, scopes.getStart(npc));
+        assertEquals(npc + 1, scopes.getLocalsStart(npc));
+        assertEquals(npc + 4, scopes.getEnd(npc));
+        assertEquals(npc, scopes.getScope(table.getIndexByName("C_NPC.ID")));
+        assertEquals(npc, scopes.getScope(table.getIndexByName("C_NPC.NAME")));
+        assertEquals(npc, scopes.getScope(table.getIndexByName("C_NPC.ATTRIBUTE")));
+        assertTrue(scopes.isLocal(npc, table.getIndexByName("C_NPC.NAME")));
+    }
+
+    @Test
+    void functionsContainTheirParametersAndLocals() {
+        var fn = table.getIndexByName("FUNC_1");
+        var param = table.getIndexByName("FUNC_1.PAR0");
+        var local = table.getIndexByName("FUNC_1.X");
+
+        assertEquals(param, scopes.getStart(fn));
+        assertEquals(local, scopes.getLocalsStart(fn));
+        assertEquals(local + 1, scopes.getEnd(fn));
+
+        assertEquals(fn, scopes.getScope(param));
+        assertEquals(fn, scopes.getScope(local));
+        assertFalse(scopes.isLocal(fn, param));
+        assertTrue(scopes.isLocal(fn, local));
+        assertFalse(scopes.isLocal(table.getIndexByName("FUNC_0"), local));
+    }
+
+    @Test
+    void otherSymbolsHaveNoScope() {
+        for (var name : new String[]{"C_NPC", "FUNC_0", "NPC_DEFAULT", "INST_0", "INST_1"}) {
+            assertEquals(-1, scopes.getScope(table.getIndexByName(name)), name);
+        }
+
+        var instance = table.getIndexByName("INST_0");
+        assertEquals(instance + 1, scopes.getEnd(instance));
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import dev.gothickit.mdd.output.TextBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotsMatchTheOriginalScript() throws IOException {
+        var script = ScriptBuilder.generate(20, 10, 2);
+        var path = directory.resolve("script.snapshot");
+        ScriptSnapshot.write(script, path);
+        var snapshot = ScriptSnapshot.read(path);
+
+        var expected = script.getSymbolTable();
+        var actual = snapshot.getSymbolTable();
+        assertEquals(expected.getSymbolCount(), actual.getSymbolCount());
+
+        for (var i = 0; i < expected.getSymbolCount(); ++i) {
+            var a = expected.getSymbol(i);
+            var b = actual.getSymbol(i);
+            assertNotNull(b);
+
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getIndex(), b.getIndex());
+            assertEquals(a.getAddress(), b.getAddress(), a.getName());
+            assertEquals(a.getSize(), b.getSize(), a.getName());
+            assertEquals(a.getType(), b.getType(), a.getName());
+            assertEquals(a.getReturnType(), b.getReturnType(), a.getName());
+            assertEquals(a.isConst(), b.isConst(), a.getName());
+            assertEquals(a.isMember(), b.isMember(), a.getName());
+            assertEquals(a.isExternal(), b.isExternal(), a.getName());
+            assertEquals(a.isMerged(), b.isMerged(), a.getName());
+            assertEquals(a.isGenerated(), b.isGenerated(), a.getName());
+            assertEquals(a.getParent(), b.getParent(), a.getName());
+            assertEquals(a.getFileIndex(), b.getFileIndex(), a.getName());
+            assertEquals(expected.getIndexByName(a.getName()), actual.getIndexByName(a.getName()));
+
+            if (!a.isMember()) {
+                for (var j = 0; j < a.getSize(); ++j) {
+                    switch (a.getType()) {
+                        case INT -> assertEquals(a.getInt(j), b.getInt(j), a.getName());
+                        case STRING -> assertEquals(a.getString(j), b.getString(j), a.getName());
+                        default -> {
+                        }
+                    }
+                }
+            }
+        }
+
+        var code = script.getCode();
+        var copy = snapshot.getCode();
+        assertEquals(code.getLength(), copy.getLength());
+        for (var address = 0; address < code.getLength(); address += Math.max(code.getSize(address), 1)) {
+            assertEquals(code.getRawOpcode(address), copy.getRawOpcode(address));
+            assertEquals(code.getData(address), copy.getData(address));
+            assertEquals(code.getSize(address), copy.getSize(address));
+        }
+
+        assertEquals(render(script), render(snapshot));
+    }
+
+    @Test
+    void invalidSnapshotsAreRejected() throws IOException {
+        var path = directory.resolve("invalid.snapshot");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> ScriptSnapshot.read(path));
+    }
+
+    private static String render(Script script) {
+        var decompiler = new Decompiler(script);
+        var text = new TextBuilder();
+
+        for (var decl : decompiler.getTopLevelSymbols()) {
+            decompiler.decompileCode(decl);
+            text.syntax(decl).text(";").newline();
+        }
+
+        return text.toString();
+    }
+}
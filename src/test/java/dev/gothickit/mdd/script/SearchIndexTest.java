@@ -0,0 +1,95 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.mdd.decompiler.Decompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+    private final Script script = ScriptBuilder.generate(300, 200, 1);
+    private final SymbolTable table = script.getSymbolTable();
+    private final SearchIndex index = new SearchIndex(table, new Decompiler(script).getTopLevelIndices());
+
+    @Test
+    void narrowedSearchesMatchFreshSearches() {
+        var sequences = new String[][]{
+                {"i", "in", "ins", "inst", "inst_", "inst_1", "inst_19", "inst_199"},
+                {"f", "fu", "func", "func_2", "func_29", "func_2", "func_"},
+                {"f", "fc", "fc2", "fc29", "fc299"},
+                {"n", "np", "npc", "npc_default", "npc_defaults"},
+        };
+
+        IntPredicate[] filters = {i -> true, i -> i % 2 == 0, i -> table.getType(i) != null && table.isConst(i)};
+        int[] limits = {1, 10, 1000};
+
+        for (var sequence : sequences) {
+            for (var filter : filters) {
+                for (var limit : limits) {
+                    SearchIndex.Result previous = null;
+
+                    for (var query : sequence) {
+                        var narrowed = index.search(query, filter, limit, previous);
+                        var fresh = index.search(query, filter, limit, null);
+
+                        assertArrayEquals(fresh.getSymbols(), narrowed.getSymbols(), query);
+                        assertEquals(fresh.getMatchCount(), narrowed.getMatchCount(), query);
+                        previous = narrowed;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void resultsAreRankedByMatchQuality() {
+        var result = index.search("func_1", i -> true, 3, null);
+        var symbols = result.getSymbols();
+
+        assertEquals(3, symbols.length);
+        assertEquals("FUNC_1", table.getName(symbols[0]));
+        assertEquals("FUNC_10", table.getName(symbols[1]));
+        assertEquals("FUNC_11", table.getName(symbols[2]));
+        assertEquals(111, result.getMatchCount());
+    }
+
+    @Test
+    void prefixMatchesComeBeforeOtherMatches() {
+        var result = index.search("inst_1", i -> true, 1000, null);
+        var symbols = result.getSymbols();
+
+        assertEquals("INST_1", table.getName(symbols[0]));
+        var prefix = true;
+        for (var symbol : symbols) {
+            var name = table.getName(symbol);
+            assertTrue(name.contains("INST_") && name.contains("1"), name);
+
+            if (!name.startsWith("INST_1")) {
+                prefix = false;
+            } else {
+                assertTrue(prefix, name);
+            }
+        }
+        assertFalse(prefix);
+    }
+
+    @Test
+    void fuzzyMatchesContainTheQueryInOrder() {
+        var result = index.search("nt19", i -> true, 1000, null);
+        assertTrue(result.getMatchCount() > 0);
+        for (var symbol : result.getSymbols()) {
+            assertTrue(table.getName(symbol).startsWith("INST_1"), table.getName(symbol));
+        }
+    }
+
+    @Test
+    void filterIsApplied() {
+        var result = index.search("inst", i -> false, 1000, null);
+        assertEquals(0, result.getSymbols().length);
+        assertEquals(0, result.getMatchCount());
+    }
+}
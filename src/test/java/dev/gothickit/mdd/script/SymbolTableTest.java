@@ -0,0 +1,59 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+    @Test
+    void symbolsAreViewsOfTheTable() {
+        var table = ScriptBuilder.generate(5, 5, 1).getSymbolTable();
+        assertEquals(table.getSymbolCount(), table.getSymbols().size());
+
+        for (var i = 0; i < table.getSymbolCount(); ++i) {
+            var symbol = table.getSymbol(i);
+            assertNotNull(symbol);
+            assertSame(symbol, table.getSymbols().get(i));
+            assertEquals(i, symbol.getIndex());
+            assertSame(table.getName(i), symbol.getName());
+            assertEquals(table.getType(i), symbol.getType());
+            assertEquals(table.getAddress(i), symbol.getAddress());
+            assertEquals(table.getParent(i), symbol.getParent());
+        }
+
+        assertNull(table.getSymbol(-1));
+        assertNull(table.getSymbol(table.getSymbolCount()));
+    }
+
+    @Test
+    void namesAndLiteralsAreInterned() {
+        var builder = new ScriptBuilder();
+        var a = builder.literal("Hello");
+        var b = builder.literal("Hello");
+        var table = builder.build().getSymbolTable();
+
+        assertSame(table.getSymbol(a).getString(0), table.getSymbol(b).getString(0));
+        assertSame(table.getName(a), table.getSymbol(a).getName());
+    }
+
+    @Test
+    void lookupsReturnTheFirstMatchingSymbol() {
+        var builder = new ScriptBuilder();
+        var first = builder.symbol("VALUE", DaedalusDataType.INT, 1, 0, 0, -1);
+        builder.symbol("VALUE", DaedalusDataType.INT, 1, 0, 0, -1);
+        var function = builder.function("FN", DaedalusDataType.VOID);
+        builder.setAddress(function).op(OP_RSR);
+
+        var table = builder.build().getSymbolTable();
+        assertEquals(first, table.getIndexByName("VALUE"));
+        assertEquals(function, table.getIndexByName("FN"));
+        assertEquals(-1, table.getIndexByName("MISSING"));
+        assertEquals(function, table.getIndexByAddress(0));
+        assertEquals(-1, table.getIndexByAddress(1));
+    }
+}
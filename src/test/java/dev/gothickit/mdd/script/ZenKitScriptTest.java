@@ -0,0 +1,83 @@
+// Copyright © 2024. GothicKit Contributors.
+// SPDX-License-Identifier: MIT-Modern-Variant
+package dev.gothickit.mdd.script;
+
+import dev.gothickit.mdd.ScriptBuilder;
+import dev.gothickit.zenkit.capi.ZenKit;
+import dev.gothickit.zenkit.daedalus.DaedalusDataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static dev.gothickit.mdd.ScriptBuilder.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ZenKit does not expose the length of the code, so {@link ZenKitScript} scans for the end of the last function. These
+ * tests check that it decodes exactly the code {@link DatScript} reads from the file.
+ */
+class ZenKitScriptTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatedScriptsDecodeLikeDatScript() throws IOException {
+        assertSameCode(ScriptBuilder.fixture(20, 10, 2));
+        assertSameCode(ScriptBuilder.fixture(5, 0, 4));
+    }
+
+    @Test
+    void codeAfterTheFirstReturnOfTheLastFunctionIsDecoded() throws IOException {
+        var builder = new ScriptBuilder();
+        var first = builder.function("FIRST", DaedalusDataType.VOID);
+        builder.setAddress(first).op(OP_RSR);
+
+        // if (x) { return 2; } return 3;
+        var last = builder.function("LAST", DaedalusDataType.INT, DaedalusDataType.INT);
+        builder.setAddress(last).op(OP_PUSHV, last + 1).op(OP_BZ, builder.getAddress(last) + 16)
+                .op(OP_PUSHI, 2).op(OP_RSR)
+                .op(OP_PUSHI, 3).op(OP_RSR);
+
+        assertSameCode(builder);
+    }
+
+    @Test
+    void theLastFunctionIsFoundByAddress() throws IOException {
+        var builder = new ScriptBuilder();
+        var last = builder.function("LAST", DaedalusDataType.VOID);
+        var first = builder.function("FIRST", DaedalusDataType.VOID);
+        var prototype = builder.symbol("PROTO", DaedalusDataType.PROTOTYPE, 0, 0, 0, -1);
+
+        builder.setAddress(first).op(OP_RSR);
+        builder.setAddress(prototype).op(OP_PUSHI, 1).op(OP_RSR);
+        builder.setAddress(last).op(OP_BL, builder.getAddress(first)).op(OP_RSR);
+
+        assertSameCode(builder);
+    }
+
+    private void assertSameCode(ScriptBuilder builder) throws IOException {
+        var path = Files.createTempFile(directory, "GOTHIC", ".DAT");
+        Files.write(path, builder.toByteArray());
+
+        ZenKit.load("Windows-1252");
+        var expected = DatScript.load(path, Charset.forName("Windows-1252")).getCode();
+        var actual = ZenKitScript.load(path).getCode();
+        assertEquals(expected.getLength(), actual.getLength());
+
+        for (var address = 0; address < expected.getLength(); ++address) {
+            assertEquals(expected.contains(address), actual.contains(address), "contains " + address);
+            if (!expected.contains(address)) {
+                continue;
+            }
+
+            assertEquals(expected.getRawOpcode(address), actual.getRawOpcode(address), "opcode at " + address);
+            assertEquals(expected.getData(address), actual.getData(address), "data at " + address);
+            assertEquals(expected.getIndex(address), actual.getIndex(address), "index at " + address);
+            assertEquals(expected.getSize(address), actual.getSize(address), "size at " + address);
+        }
+    }
+}